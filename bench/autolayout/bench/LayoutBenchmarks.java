@@ -0,0 +1,566 @@
+package autolayout.bench;
+
+import autolayout.ALJTable.*;
+import autolayout.LayoutAttribute;
+import autolayout.LayoutConstraint;
+import autolayout.LayoutEngine;
+import autolayout.LayoutModel;
+import autolayout.LayoutNode;
+import autolayout.LayoutRelation;
+import autolayout.uiobjects.ALJPanel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for <code>LayoutEngine</code> and <code>ALJTable</code>, run headless against lightweight components.
+ * <p>
+ * Every view hierarchy is built once per trial, outside the measurement, and every benchmark is run in forked JVMs.  The sizes are <code>@Param</code>s, so a run can be narrowed with <code>-p</code>.  Run with <code>-prof gc</code> to also report the bytes allocated per operation.
+ * <p>
+ * Build and run from the repository root:
+ * <pre>
+ * mvn -B -Pbench package -DskipTests
+ * java -jar target/benchmarks.jar LayoutBenchmarks.chain -p count=1000 -prof gc
+ * </pre>
+ * <code>-f 1 -wi 2 -i 3</code> gives a shorter run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LayoutBenchmarks
+{
+	/**
+	 * A view hierarchy built from <code>count</code> views, laid out once before it is measured.
+	 */
+	@State(Scope.Thread)
+	public abstract static class Views
+	{
+		@Param({"10", "100", "1000", "10000"})
+		public int count;
+
+		ALJPanel panel;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			LayoutEngine.current.setSpecializesLayoutPlans(specializes());
+			panel = build(count);
+			LayoutEngine.current.processConstraintsIn(panel);
+		}
+
+		abstract ALJPanel build(int count);
+
+		boolean specializes()
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Laid out by a <code>LayoutPlan</code>, which is compiled specialized when <code>specializes</code> is <code>true</code>.
+	 */
+	public static class Chain extends Views
+	{
+		@Param({"false", "true"})
+		public boolean specializes;
+
+		@Override
+		ALJPanel build(int count)
+		{
+			return chain(count);
+		}
+
+		@Override
+		boolean specializes()
+		{
+			return specializes;
+		}
+	}
+
+	/**
+	 * Laid out by a <code>LayoutPlan</code>, which is compiled specialized when <code>specializes</code> is <code>true</code>.
+	 */
+	public static class Grid extends Views
+	{
+		@Param({"false", "true"})
+		public boolean specializes;
+
+		@Override
+		ALJPanel build(int count)
+		{
+			return grid(count);
+		}
+
+		@Override
+		boolean specializes()
+		{
+			return specializes;
+		}
+	}
+
+	public static class Spaced extends Views
+	{
+		@Override
+		ALJPanel build(int count)
+		{
+			return spaced(count);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Siblings
+	{
+		@Param({"10", "100", "1000", "10000"})
+		public int count;
+
+		@Param({"true", "false"})
+		public boolean solvesInParallel;
+
+		ALJPanel panel;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			LayoutEngine.current.setSolvesInParallel(solvesInParallel);
+			panel = siblings(count);
+			panel.layoutSubviews();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Nested
+	{
+		@Param({"10", "100", "1000", "10000"})
+		public int count;
+
+		ALJPanel panel;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			panel = nested(count);
+			panel.layoutSubviews();
+		}
+	}
+
+	/**
+	 * Laid out without Swing, so it measures the engine alone.  Its plan is compiled specialized when <code>specializes</code> is <code>true</code>.
+	 */
+	@State(Scope.Thread)
+	public static class Model
+	{
+		@Param({"10", "100", "1000", "10000"})
+		public int count;
+
+		@Param({"false", "true"})
+		public boolean specializes;
+
+		LayoutModel model;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			LayoutEngine.current.setSpecializesLayoutPlans(specializes);
+			model = model(count);
+			model.layout();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Table
+	{
+		@Param({"100", "10000", "100000"})
+		public int rows;
+
+		ALJTable table;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			table = table(rows);
+		}
+	}
+
+	@Benchmark
+	public void chainRelayout(Chain chain, Blackhole blackhole)
+	{
+		relayout(chain.panel, blackhole);
+	}
+
+	@Benchmark
+	public void chainResize(Chain chain, Blackhole blackhole)
+	{
+		resize(chain.panel, blackhole);
+	}
+
+	@Benchmark
+	public void chainCompile(Chain chain, Blackhole blackhole)
+	{
+		compile(chain.panel, blackhole);
+	}
+
+	@Benchmark
+	public void gridRelayout(Grid grid, Blackhole blackhole)
+	{
+		relayout(grid.panel, blackhole);
+	}
+
+	@Benchmark
+	public void gridResize(Grid grid, Blackhole blackhole)
+	{
+		resize(grid.panel, blackhole);
+	}
+
+	@Benchmark
+	public void gridCompile(Grid grid, Blackhole blackhole)
+	{
+		compile(grid.panel, blackhole);
+	}
+
+	@Benchmark
+	public void spacedResize(Spaced spaced, Blackhole blackhole)
+	{
+		resize(spaced.panel, blackhole);
+	}
+
+	@Benchmark
+	public void modelResize(Model model, Blackhole blackhole)
+	{
+		model.model.layout(nextWidth(model.model.root().getWidth()), 600);
+		blackhole.consume(model.model.calculatedHeight());
+	}
+
+	/**
+	 * Resizes sixteen side by side panels, which are solved in parallel or one after another depending on <code>solvesInParallel</code>.
+	 */
+	@Benchmark
+	public void siblingsResize(Siblings siblings, Blackhole blackhole)
+	{
+		resizeSubviews(siblings.panel, blackhole);
+	}
+
+	@Benchmark
+	public void nestedRelayout(Nested nested, Blackhole blackhole)
+	{
+		nested.panel.layoutSubviews();
+		blackhole.consume(nested.panel.getComponent(nested.panel.getComponentCount() - 1).getY());
+	}
+
+	@Benchmark
+	public void nestedResize(Nested nested, Blackhole blackhole)
+	{
+		resizeSubviews(nested.panel, blackhole);
+	}
+
+	@Benchmark
+	public void tableReloadData(Table table, Blackhole blackhole)
+	{
+		table.table.reloadData();
+		blackhole.consume(table.table.getComponentCount());
+	}
+
+	@Benchmark
+	public void tableLayoutSubviews(Table table, Blackhole blackhole)
+	{
+		table.table.layoutSubviews();
+		blackhole.consume(table.table.getComponentCount());
+	}
+
+	@Benchmark
+	public void tableScroll(Table table, Blackhole blackhole)
+	{
+		blackhole.consume(scroll(table.table));
+	}
+
+	@Benchmark
+	public void tableBatchUpdate(Table table, Blackhole blackhole)
+	{
+		batchUpdate(table.table, table.rows);
+		blackhole.consume(table.table.getComponentCount());
+	}
+
+	private static void relayout(ALJPanel panel, Blackhole blackhole)
+	{
+		LayoutEngine.current.processConstraintsIn(panel);
+		consumeLastView(panel, blackhole);
+	}
+
+	private static void resize(ALJPanel panel, Blackhole blackhole)
+	{
+		panel.setSize(nextWidth(panel.getWidth()), panel.getHeight());
+		LayoutEngine.current.processConstraintsIn(panel);
+		consumeLastView(panel, blackhole);
+	}
+
+	/**
+	 * Resizes <code>panel</code> and lays out its whole subtree through <code>layoutSubviews()</code>.
+	 */
+	private static void resizeSubviews(ALJPanel panel, Blackhole blackhole)
+	{
+		panel.setSize(nextWidth(panel.getWidth()), panel.getHeight());
+		panel.layoutSubviews();
+		consumeLastView(panel, blackhole);
+	}
+
+	/**
+	 * Widens by a pixel at a time, the way dragging the edge of a window does, and starts over at 800 after 1000.  That is more sizes than a <code>LayoutResultCache</code> remembers, so every resize is solved.
+	 */
+	private static int nextWidth(int width)
+	{
+		return width >= 1000 ? 800 : width + 1;
+	}
+
+	private static void compile(ALJPanel panel, Blackhole blackhole)
+	{
+		panel.layoutCache().invalidate();
+		LayoutEngine.current.processConstraintsIn(panel);
+		consumeLastView(panel, blackhole);
+	}
+
+	private static void consumeLastView(ALJPanel panel, Blackhole blackhole)
+	{
+		Component view = panel.getComponent(panel.getComponentCount() - 1);
+		blackhole.consume(view.getWidth());
+		blackhole.consume(view.getY());
+	}
+
+	private static LayoutConstraint constraint(JComponent viewOne, LayoutAttribute attributeOne, JComponent viewTwo, LayoutAttribute attributeTwo, double multiplier, int constant)
+	{
+		return new LayoutConstraint(viewOne, attributeOne, LayoutRelation.equal, viewTwo, attributeTwo, multiplier, constant);
+	}
+
+	/**
+	 * A column of views, each pinned to the sides of the panel and below the previous one.
+	 */
+	private static ALJPanel chain(int count)
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		JComponent previous = null;
+		for (int index = 0; index < count; index++)
+		{
+			JPanel view = new JPanel();
+			panel.add(view);
+			panel.addConstraint(constraint(view, LayoutAttribute.leading, panel, LayoutAttribute.leading, 1.0, 8));
+			panel.addConstraint(constraint(view, LayoutAttribute.trailing, panel, LayoutAttribute.trailing, 1.0, -8));
+			panel.addConstraint(previous == null ? constraint(view, LayoutAttribute.top, panel, LayoutAttribute.top, 1.0, 8) : constraint(view, LayoutAttribute.top, previous, LayoutAttribute.bottom, 1.0, 4));
+			panel.addConstraint(constraint(view, LayoutAttribute.height, null, LayoutAttribute.height, 1.0, 20));
+			previous = view;
+		}
+		return panel;
+	}
+
+	/**
+	 * The same column as <code>chain(_:)</code>, built from <code>LayoutNode</code>s, so it measures the engine without Swing.
+	 */
+	private static LayoutModel model(int count)
+	{
+		LayoutModel model = new LayoutModel(new LayoutNode("root"));
+		LayoutNode root = model.root();
+		root.setSize(800, 600);
+
+		LayoutNode previous = null;
+		for (int index = 0; index < count; index++)
+		{
+			LayoutNode node = new LayoutNode("node" + index);
+			model.addConstraint(new LayoutConstraint(node, LayoutAttribute.leading, LayoutRelation.equal, root, LayoutAttribute.leading, 1.0, 8));
+			model.addConstraint(new LayoutConstraint(node, LayoutAttribute.trailing, LayoutRelation.equal, root, LayoutAttribute.trailing, 1.0, -8));
+			model.addConstraint(previous == null ? new LayoutConstraint(node, LayoutAttribute.top, LayoutRelation.equal, root, LayoutAttribute.top, 1.0, 8) : new LayoutConstraint(node, LayoutAttribute.top, LayoutRelation.equal, previous, LayoutAttribute.bottom, 1.0, 4));
+			model.addConstraint(new LayoutConstraint(node, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 20));
+			previous = node;
+		}
+		return model;
+	}
+
+	/**
+	 * A square grid of views.  Each view is a fraction of the width of the panel, and is placed next to and below its neighbours.
+	 */
+	private static ALJPanel grid(int count)
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		int columns = Math.max(1, (int) Math.sqrt(count));
+		ArrayList<JComponent> views = new ArrayList<>();
+		for (int index = 0; index < count; index++)
+		{
+			JPanel view = new JPanel();
+			panel.add(view);
+			int column = index % columns;
+			panel.addConstraint(column == 0 ? constraint(view, LayoutAttribute.leading, panel, LayoutAttribute.leading, 1.0, 0) : constraint(view, LayoutAttribute.leading, views.get(index - 1), LayoutAttribute.trailing, 1.0, 0));
+			panel.addConstraint(index < columns ? constraint(view, LayoutAttribute.top, panel, LayoutAttribute.top, 1.0, 0) : constraint(view, LayoutAttribute.top, views.get(index - columns), LayoutAttribute.bottom, 1.0, 0));
+			panel.addConstraint(constraint(view, LayoutAttribute.width, panel, LayoutAttribute.width, 1.0 / columns, 0));
+			panel.addConstraint(constraint(view, LayoutAttribute.height, null, LayoutAttribute.height, 1.0, 20));
+			views.add(view);
+		}
+		return panel;
+	}
+
+	/**
+	 * A column of views like <code>chain(_:)</code>, but each view is kept at least a gap below the previous one instead of exactly, so it is laid out by the linear solver.
+	 */
+	private static ALJPanel spaced(int count)
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		JComponent previous = null;
+		for (int index = 0; index < count; index++)
+		{
+			JPanel view = new JPanel();
+			panel.add(view);
+			panel.addConstraint(constraint(view, LayoutAttribute.leading, panel, LayoutAttribute.leading, 1.0, 8));
+			panel.addConstraint(constraint(view, LayoutAttribute.trailing, panel, LayoutAttribute.trailing, 1.0, -8));
+			panel.addConstraint(previous == null ? constraint(view, LayoutAttribute.top, panel, LayoutAttribute.top, 1.0, 8) : new LayoutConstraint(view, LayoutAttribute.top, LayoutRelation.greaterThanOrEqual, previous, LayoutAttribute.bottom, 1.0, 4));
+			panel.addConstraint(constraint(view, LayoutAttribute.height, null, LayoutAttribute.height, 1.0, 20));
+			previous = view;
+		}
+		return panel;
+	}
+
+	/**
+	 * Sixteen side by side panels, like the independent panels of a dashboard, sharing <code>count</code> views in columns like <code>chain(_:)</code>.
+	 */
+	private static ALJPanel siblings(int count)
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		int columns = 16;
+		JComponent previous = null;
+		for (int column = 0; column < columns; column++)
+		{
+			ALJPanel columnPanel = chain(Math.max(1, count / columns));
+			panel.add(columnPanel);
+			panel.addConstraint(previous == null ? constraint(columnPanel, LayoutAttribute.leading, panel, LayoutAttribute.leading, 1.0, 0) : constraint(columnPanel, LayoutAttribute.leading, previous, LayoutAttribute.trailing, 1.0, 0));
+			panel.addConstraint(constraint(columnPanel, LayoutAttribute.top, panel, LayoutAttribute.top, 1.0, 0));
+			panel.addConstraint(constraint(columnPanel, LayoutAttribute.width, panel, LayoutAttribute.width, 1.0 / columns, 0));
+			panel.addConstraint(constraint(columnPanel, LayoutAttribute.height, panel, LayoutAttribute.height, 1.0, 0));
+			previous = columnPanel;
+		}
+		return panel;
+	}
+
+	/**
+	 * Rows of nested panels with ten labels each, laid out through <code>layoutSubviews()</code> so every level is processed.
+	 */
+	private static ALJPanel nested(int count)
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		JComponent previous = null;
+		for (int row = 0; row < Math.max(1, count / 10); row++)
+		{
+			ALJPanel rowPanel = new ALJPanel();
+			panel.add(rowPanel);
+			panel.addConstraint(constraint(rowPanel, LayoutAttribute.leading, panel, LayoutAttribute.leading, 1.0, 0));
+			panel.addConstraint(constraint(rowPanel, LayoutAttribute.trailing, panel, LayoutAttribute.trailing, 1.0, 0));
+			panel.addConstraint(previous == null ? constraint(rowPanel, LayoutAttribute.top, panel, LayoutAttribute.top, 1.0, 0) : constraint(rowPanel, LayoutAttribute.top, previous, LayoutAttribute.bottom, 1.0, 0));
+			panel.addConstraint(constraint(rowPanel, LayoutAttribute.height, null, LayoutAttribute.height, 1.0, 24));
+
+			JComponent previousLabel = null;
+			for (int column = 0; column < 10; column++)
+			{
+				JLabel label = new JLabel("Label " + column);
+				rowPanel.add(label);
+				rowPanel.addConstraint(previousLabel == null ? constraint(label, LayoutAttribute.leading, rowPanel, LayoutAttribute.leading, 1.0, 4) : constraint(label, LayoutAttribute.leading, previousLabel, LayoutAttribute.trailing, 1.0, 4));
+				rowPanel.addConstraint(constraint(label, LayoutAttribute.centerY, rowPanel, LayoutAttribute.centerY, 1.0, 0));
+				previousLabel = label;
+			}
+			previous = rowPanel;
+		}
+		return panel;
+	}
+
+	/**
+	 * Scrolls down by one page, and back to the top once the end is reached.
+	 *
+	 * @return the position scrolled to
+	 */
+	private static int scroll(ALJTable table)
+	{
+		JViewport viewport = ((JScrollPane) table.getComponent(0)).getViewport();
+		int y = viewport.getViewPosition().y + table.getHeight();
+		y = y + table.getHeight() > viewport.getView().getHeight() ? 0 : y;
+		viewport.setViewPosition(new Point(0, y));
+		return y;
+	}
+
+	/**
+	 * Replaces and reloads ten rows spread over the table in one batch, the way a live data source would, so the number of rows stays the same.
+	 */
+	private static void batchUpdate(ALJTable table, int rows)
+	{
+		table.performBatchUpdates(() -> {
+			for (int item = 0; item < rows; item += rows / 10)
+			{
+				table.deleteRows(new ALJTableIndex(0, item));
+				table.insertRows(new ALJTableIndex(0, item));
+				table.reloadRows(new ALJTableIndex(0, item + 1));
+			}
+		});
+	}
+
+	private static ALJTable table(int rows)
+	{
+		ALJTable table = new ALJTable();
+		table.setSize(800, 600);
+		table.dataSource = new ALJTableDataSource()
+		{
+			@Override
+			public int numberOfSectionsIn(ALJTable table)
+			{
+				return 1;
+			}
+
+			@Override
+			public int numberOfRowsInSectionForTable(ALJTable table, int section)
+			{
+				return rows;
+			}
+
+			@Override
+			public int heightForRow(ALJTable table, int inSection)
+			{
+				return 44;
+			}
+
+			@Override
+			public ALJTableCell cellForRowAtIndexInTable(ALJTable table, ALJTableIndex index)
+			{
+				ALJTableCell cell = table.dequeueReusableCell("row");
+				if (cell == null)
+				{
+					cell = new ALJTableCell(ALJTableCellAccessoryViewType.none, "row");
+				}
+				cell.titleLabel.setText("Row " + index.item);
+				return cell;
+			}
+
+			@Override
+			public String titleForHeaderInSectionInTable(ALJTable table, int section)
+			{
+				return null;
+			}
+
+			@Override
+			public String titleForFooterInSectionInTable(ALJTable table, int section)
+			{
+				return null;
+			}
+
+			@Override
+			public void tableView(ALJTable table, ALJTableCellEditingStyle commit, ALJTableIndex forRowAt) { }
+		};
+		table.reloadData();
+		return table;
+	}
+}
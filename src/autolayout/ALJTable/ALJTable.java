@@ -1,6 +1,7 @@
 package autolayout.ALJTable;
 
 import autolayout.LayoutAttribute;
+import autolayout.LayoutCache;
 import autolayout.LayoutConstraint;
 import autolayout.LayoutRelation;
 import autolayout.uiobjects.ALJPanel;
@@ -10,27 +11,138 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.Objects;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 import static autolayout.LayoutEngine.getClassAndHashCode;
 
+/**
+ * A scrolling list of rows grouped in sections, filled in by an <code>ALJTableDataSource</code>.
+ * <p>
+ * Only the rows in or near the visible part of the table are shown by a cell.  The position of every row is computed from the row heights, without a component or a constraint for each row, so the cost of loading and showing a table depends on the size of its viewport rather than on its number of rows.  Finding the frame of a row, or the row at an offset, is arithmetic on the row heights of each section.
+ * <p>
+ * Rows can also have heights of their own, given by <code>ALJTableDataSource.heightForRowAtIndex(_:_:)</code>, or by the cells themselves with <code>automaticRowHeights</code>.  Their heights are kept in a prefix sum tree, so changing the height of one row with <code>rowHeightDidChange(_:)</code> only moves the cells shown below it, and does not lay out the rest of the table.  When a cell scrolls out of view it is kept for <code>dequeueReusableCell(_:)</code>, and the data source can configure it to show another row instead of creating a new cell:
+ * <pre>
+ * ALJTableCell cell = table.dequeueReusableCell("contact");
+ * if (cell == null)
+ * {
+ *     cell = new ALJTableCell(ALJTableCellAccessoryViewType.none, "contact");
+ * }
+ * cell.titleLabel.setText(contacts.get(index.item).name);
+ * return cell;
+ * </pre>
+ * <p>
+ * Changes to the rows of the data source are shown with <code>insertRows(_:)</code>, <code>deleteRows(_:)</code>, <code>reloadRows(_:)</code> and <code>moveRow(_:_:)</code>, or many of them at once inside <code>performBatchUpdates(_:)</code>.  Only the cells of the rows that changed are asked for again, and the rows around them keep their cells and only move, so a table can follow a live data source without <code>reloadData()</code>.
+ */
 @SuppressWarnings("unused")
 public class ALJTable extends ALJPanel implements ComponentListener, ALJTableCellDelegate
 {
-	private final ALJPanel tableView;
+	//Data sources that give rows heights of their own
+	private static final ClassValue<Boolean> overridesRowHeights = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				return type.getMethod("heightForRowAtIndex", ALJTable.class, ALJTableIndex.class).getDeclaringClass() != ALJTableDataSource.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return false;
+			}
+		}
+	};
+
+	private final RowsView tableView;
 	private final JScrollPane scrollPane;
 	public ALJTableDataSource dataSource;
 	public ALJTableDelegate delegate;
 	public int heightForRow = -1;
+	/**
+	 * The number of rows shown above and below the viewport, so a short scroll reveals rows that are already laid out.
+	 */
+	public int overscanRows = 4;
+	/**
+	 * When enabled, every row is as tall as the preferred height of the cell showing it.  Rows that have not been shown yet are estimated to be the height of the other rows in their section.  Set this before <code>reloadData()</code>.
+	 */
+	public boolean automaticRowHeights = false;
 	private boolean _isLoaded = false;
 
+	private final ALJTableGeometry geometry = new ALJTableGeometry();
+	private final HashMap<Integer, ALJTableCell> visibleCells = new HashMap<>();
+	private final HashMap<Integer, SectionHeader> visibleHeaders = new HashMap<>();
+	private final HashMap<String, ArrayDeque<ALJTableCell>> reusableCells = new HashMap<>();
+	private final ArrayDeque<SectionHeader> reusableHeaders = new ArrayDeque<>();
+	private SectionHeader headerPrototype = null;
+	private int maximumShownRowCount = 0;
+	private boolean isLayingOut = false;
+	private boolean rowHeightsDidChange = false;
+	//The rows edited inside performBatchUpdates(_:), or null outside of it
+	private ALJTableUpdate pendingUpdate = null;
+
+	private final MouseListener selectionListener = new MouseAdapter()
+	{
+		@Override
+		public void mouseReleased(MouseEvent e)
+		{
+			ALJTableIndex index = ((ALJTableCell) e.getComponent()).currentIndex;
+			if (delegate != null && index != null)
+			{ delegate.didSelectItemAtIndexInTable(ALJTable.this, index); }
+		}
+	};
+
+	private static final class SectionHeader extends JLabel
+	{
+		private static final long serialVersionUID = 1L;
+
+		SectionHeader()
+		{
+			setForeground(Color.lightGray);
+		}
+	}
+
+	/**
+	 * The content of the scroll pane.  Cells and headers come and go as the table scrolls, so they are placed from the row heights instead of by constraints, and showing or discarding one neither compiles a new layout plan nor lays out the table.
+	 */
+	private final class RowsView extends ALJPanel
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Showing or discarding a cell is followed by a layout of this view from the table, so neither needs to mark it, or the table above it.
+		 */
+		@Override
+		protected void subviewsDidChange() { }
+
+		@Override
+		public void layoutSubviews()
+		{
+			for (Map.Entry<Integer, ALJTableCell> entry : visibleCells.entrySet())
+			{
+				entry.getValue().setBounds(0, geometry.rowTop(entry.getKey()), getWidth(), geometry.rowHeight(entry.getKey()));
+			}
+			for (Map.Entry<Integer, SectionHeader> entry : visibleHeaders.entrySet())
+			{
+				Dimension size = entry.getValue().getPreferredSize();
+				entry.getValue().setBounds(ALJTableGeometry.HEADER_INSET, geometry.headerTop(entry.getKey()), size.width, size.height);
+			}
+			layoutDescendantsIfNeeded();
+			repaint();
+		}
+	}
+
 	public ALJTable()
 	{
 		setBackground(Color.white);
 		setBorder(new EmptyBorder(0, 0, 0, 0));
-		tableView = new ALJPanel();
+		tableView = new RowsView();
 		tableView.setBackground(Color.white);
 
 		scrollPane = new JScrollPane();
@@ -44,6 +156,13 @@ public class ALJTable extends ALJPanel implements ComponentListener, ALJTableCel
 		add(scrollPane);
 
 		scrollPane.getViewport().setView(tableView);
+		scrollPane.getViewport().addChangeListener(e -> {
+			//Scrolling only changes which rows are shown, and the rows that were already shown keep their frames
+			if (!isLayingOut && updateVisibleRows())
+			{
+				tableView.layoutSubviews();
+			}
+		});
 
 		addConstraint(new LayoutConstraint(scrollPane, LayoutAttribute.leading, LayoutRelation.equal, this, LayoutAttribute.leading, 1.0, 0));
 		addConstraint(new LayoutConstraint(scrollPane, LayoutAttribute.top, LayoutRelation.equal, this, LayoutAttribute.top, 1.0, 0));
@@ -60,22 +179,28 @@ public class ALJTable extends ALJPanel implements ComponentListener, ALJTableCel
 	{
 		super.layoutSubviews();
 
-		tableView.setPreferredSize(new Dimension(scrollPane.getBounds().width, tableView.calculatedHeight()));
-		scrollPane.setPreferredSize(new Dimension(scrollPane.getBounds().width, tableView.calculatedHeight()));
-		tableView.layoutSubviews();
-		tableView.setBounds(0, 0, getBounds().width, 1000000);
-		repaint();
-		tableView.layoutSubviews();
-		tableView.setBounds(0, 0, getBounds().width, tableView.calculatedHeight());
-		repaint();
+		//The height of tableView is known from the row heights, so only the rows that are shown are laid out
+		updateContentSize();
+		updateVisibleRows();
 		tableView.layoutSubviews();
-		tableView.setBounds(0, 0, getBounds().width, tableView.calculatedHeight());
 		repaint();
 		tableView.repaint();
 		scrollPane.repaint();
 		scrollPane.revalidate();
 	}
 
+	@Override
+	public void layoutIfNeeded()
+	{
+		//The height of tableView depends on every row, so a change anywhere below the table lays out the whole table
+		LayoutCache cache = layoutCache();
+		if (cache.needsLayout(getWidth(), getHeight()) || cache.descendantNeedsLayout())
+		{
+			cache.didLayoutDescendants();
+			layoutSubviews();
+		}
+	}
+
 	public void reloadData()
 	{
 		if (dataSource == null)
@@ -84,113 +209,440 @@ public class ALJTable extends ALJPanel implements ComponentListener, ALJTableCel
 			return;
 		}
 
-		tableView.removeAll();
+		for (ALJTableCell cell : visibleCells.values())
+		{
+			enqueue(cell);
+		}
+		visibleCells.clear();
+		for (SectionHeader header : visibleHeaders.values())
+		{
+			header.setVisible(false);
+			reusableHeaders.add(header);
+		}
+		visibleHeaders.clear();
 
-		int totalNumSections = dataSource.numberOfSectionsIn(this);
+		geometry.reload(this, dataSource);
 
-		JComponent previous = null;
+		if (geometry.rowCount() > 0)
+		{ setPreferredSize(new Dimension(tableView.getPreferredSize().width, geometry.contentHeight())); }
+		_isLoaded = true;
+		layoutSubviews();
+	}
 
-		for (int section = 0; section < totalNumSections; section++)
+	/**
+	 * @return a cell with <code>identifier</code> that was scrolled out of view, ready to show another row, or <code>null</code> if there is none and the data source needs to create one
+	 */
+	public ALJTableCell dequeueReusableCell(String identifier)
+	{
+		ArrayDeque<ALJTableCell> cells = reusableCells.get(identifier);
+		ALJTableCell cell = cells == null ? null : cells.pollLast();
+		if (cell != null)
 		{
-			if (!Objects.equals(dataSource.titleForHeaderInSectionInTable(this, section), "") && dataSource.titleForHeaderInSectionInTable(this, section) != null)
+			cell.prepareForReuse();
+		}
+		return cell;
+	}
+
+	/**
+	 * @return the cell showing the row at <code>index</code>, or <code>null</code> if the row is not in or near the visible part of the table
+	 */
+	public ALJTableCell cellForRowAtIndex(ALJTableIndex index)
+	{
+		if (!isValid(index)) { return null; }
+		return visibleCells.get(geometry.row(index));
+	}
+
+	/**
+	 * Finds the row at a point of the table's content, whether or not a cell is showing it, without looking at any component.
+	 *
+	 * @param y the offset from the top of the first section, such as the y of a mouse event on a cell plus the y of the cell
+	 * @return the index of the row at <code>y</code>, or <code>null</code> if <code>y</code> is on a section header or outside of every row
+	 */
+	public ALJTableIndex indexForRowAt(int y)
+	{
+		int row = geometry.rowAt(y);
+		if (row < 0 || y < geometry.rowTop(row)) { return null; }
+		return geometry.index(row);
+	}
+
+	/**
+	 * @return the frame of the row at <code>index</code> in the table's content, whether or not a cell is showing it, or <code>null</code> if there is no such row
+	 */
+	public Rectangle rectForRow(ALJTableIndex index)
+	{
+		if (!isValid(index)) { return null; }
+		int row = geometry.row(index);
+		return new Rectangle(0, geometry.rowTop(row), tableView.getWidth(), geometry.rowHeight(row));
+	}
+
+	/**
+	 * Scrolls the table so the row at <code>index</code> is at the top of the viewport, or as close to it as the content allows.
+	 */
+	public void scrollToRow(ALJTableIndex index)
+	{
+		Rectangle rect = rectForRow(index);
+		if (rect == null) { return; }
+
+		JViewport viewport = scrollPane.getViewport();
+		int visibleHeight = viewport.getHeight() > 0 ? viewport.getHeight() : getHeight();
+		viewport.setViewPosition(new Point(0, Math.max(0, Math.min(rect.y, geometry.contentHeight() - visibleHeight))));
+	}
+
+	private boolean isValid(ALJTableIndex index)
+	{
+		return index != null && index.section >= 0 && index.section < geometry.sectionCount() && index.item >= 0 && geometry.firstRow(index.section) + index.item < geometry.firstRow(index.section + 1);
+	}
+
+	/**
+	 * Reads the height of the row at <code>index</code> again, from the cell showing it when <code>automaticRowHeights</code> is enabled, or from the data source otherwise.  Only the cells shown below the row are moved, and the rest of the table is not laid out again.
+	 */
+	public void rowHeightDidChange(ALJTableIndex index)
+	{
+		if (!isValid(index)) { return; }
+
+		int row = geometry.row(index);
+		ALJTableCell cell = visibleCells.get(row);
+		int height = automaticRowHeights && cell != null ? Math.max(1, cell.getPreferredSize().height) : rowHeight(index);
+		if (height == geometry.rowHeight(row)) { return; }
+
+		geometry.setRowHeight(row, height);
+		updateContentSize();
+		updateVisibleRows();
+		tableView.layoutSubviews();
+	}
+
+	/**
+	 * Shows new rows at <code>indexes</code>, which are indexes after the rows were added to the data source.  Only the rows below them move, and cells are only created for the new rows that are in or near the viewport.
+	 */
+	public void insertRows(ALJTableIndex... indexes)
+	{
+		performBatchUpdates(() -> {
+			for (ALJTableIndex index : indexes)
 			{
-				JLabel sectionTitle = new JLabel(dataSource.titleForHeaderInSectionInTable(this, section).toUpperCase());
-				sectionTitle.setForeground(Color.lightGray);
-				tableView.add(sectionTitle);
+				pendingUpdate.insert(index);
+			}
+		});
+	}
 
-				tableView.addConstraint(new LayoutConstraint(sectionTitle, LayoutAttribute.leading, LayoutRelation.equal, tableView, LayoutAttribute.leading, 1.0, 40));
-				if (previous == null)
-				{
-					tableView.addConstraint(new LayoutConstraint(sectionTitle, LayoutAttribute.top, LayoutRelation.equal, tableView, LayoutAttribute.top, 1.0, 80));
-				}
-				else
-				{
-					tableView.addConstraint(new LayoutConstraint(sectionTitle, LayoutAttribute.top, LayoutRelation.equal, previous, LayoutAttribute.bottom, 1.0, 80));
-				}
+	/**
+	 * Removes the rows at <code>indexes</code>, which are indexes before the rows were removed from the data source.  Their cells go back to the reuse pool, and only the rows below them move.
+	 */
+	public void deleteRows(ALJTableIndex... indexes)
+	{
+		performBatchUpdates(() -> {
+			for (ALJTableIndex index : indexes)
+			{
+				pendingUpdate.delete(index);
+			}
+		});
+	}
 
-				previous = sectionTitle;
+	/**
+	 * Asks the data source for the cells and heights of the rows at <code>indexes</code> again, without touching any other row.
+	 */
+	public void reloadRows(ALJTableIndex... indexes)
+	{
+		performBatchUpdates(() -> {
+			for (ALJTableIndex index : indexes)
+			{
+				pendingUpdate.reload(index);
 			}
+		});
+	}
 
-			int totalNumRowsInSection = dataSource.numberOfRowsInSectionForTable(this, section);
-			for (int item = 0; item < totalNumRowsInSection; item++)
+	/**
+	 * Moves the row at <code>from</code>, an index before the move, to <code>to</code>, an index after it.  The cell showing the row keeps its content and only moves.
+	 */
+	public void moveRow(ALJTableIndex from, ALJTableIndex to)
+	{
+		performBatchUpdates(() -> pendingUpdate.move(from, to));
+	}
+
+	/**
+	 * Runs <code>updates</code>, which changes the data source and calls <code>insertRows(_:)</code>, <code>deleteRows(_:)</code>, <code>reloadRows(_:)</code> and <code>moveRow(_:_:)</code>, and then applies every edit at once with a single layout pass.  As with separate calls, deleted, reloaded and moved from rows are indexes before the update, and inserted and moved to rows are indexes after it.
+	 * <p>
+	 * If the number of rows in a section does not add up after the update, the error is printed and every row is reloaded instead.
+	 */
+	public void performBatchUpdates(Runnable updates)
+	{
+		if (pendingUpdate != null)
+		{
+			updates.run();
+			return;
+		}
+
+		ALJTableUpdate update = new ALJTableUpdate();
+		pendingUpdate = update;
+		try
+		{
+			updates.run();
+		}
+		finally
+		{
+			pendingUpdate = null;
+		}
+		apply(update);
+	}
+
+	/**
+	 * Shows the rows of the data source after <code>update</code>, which the data source already reflects.
+	 */
+	void apply(ALJTableUpdate update)
+	{
+		if (!_isLoaded || dataSource == null || update.isEmpty()) { return; }
+
+		int sectionCount = geometry.sectionCount();
+		if (dataSource.numberOfSectionsIn(this) != sectionCount)
+		{
+			System.out.println(getClassAndHashCode(this) + " had its number of sections changed in an update of its rows.  Reloading every row instead.");
+			reloadData();
+			return;
+		}
+		int[] oldRowCounts = new int[sectionCount];
+		int[] rowCounts = new int[sectionCount];
+		for (int section = 0; section < sectionCount; section++)
+		{
+			oldRowCounts[section] = geometry.rowCount(section);
+			rowCounts[section] = Math.max(0, dataSource.numberOfRowsInSectionForTable(this, section));
+		}
+		String problem = update.problem(oldRowCounts, rowCounts);
+		if (problem != null)
+		{
+			System.out.println("Invalid update of " + getClassAndHashCode(this) + ": it " + problem + ".  Reloading every row instead.");
+			reloadData();
+			return;
+		}
+
+		//Cells of rows that are kept only move, and the cells of deleted and reloaded rows go back to the pool
+		ArrayList<ALJTableCell> keptCells = new ArrayList<>(visibleCells.size());
+		for (ALJTableCell cell : visibleCells.values())
+		{
+			ALJTableIndex index = update.isReloaded(cell.currentIndex) ? null : update.newIndex(cell.currentIndex);
+			if (index == null)
 			{
-				ALJTableCell cell = dataSource.cellForRowAtIndexInTable(this, new ALJTableIndex(section, item));
-				cell.delegate = this;
-				cell.currentIndex = new ALJTableIndex(section, item);
-				tableView.add(cell);
+				enqueue(cell);
+			}
+			else
+			{
+				cell.currentIndex = index;
+				keptCells.add(cell);
+			}
+		}
+		visibleCells.clear();
 
-				int finalSection = section;
-				int finalItem = item;
-				ALJTable table = this;
-				cell.addMouseListener(new MouseListener()
-				{
-					@Override
-					public void mouseClicked(MouseEvent e)
-					{
+		geometry.update(this, update, rowCounts);
+		for (ALJTableCell cell : keptCells)
+		{
+			visibleCells.put(geometry.row(cell.currentIndex), cell);
+		}
+		updateContentSize();
+		updateVisibleRows();
+		tableView.layoutSubviews();
+	}
 
-					}
+	/**
+	 * Shows the rows and section headers that intersect the viewport, and hands every other cell to the reuse pool.
+	 *
+	 * @return <code>true</code> if any row or header was added or moved
+	 */
+	private boolean updateVisibleRows()
+	{
+		boolean wasLayingOut = isLayingOut;
+		isLayingOut = true;
+		boolean didChange = false;
+		//Measuring the cells that were just shown can change the height of their rows, which moves the rows below them and can change which rows are in the viewport
+		for (int attempt = 0; attempt < 3; attempt++)
+		{
+			rowHeightsDidChange = false;
+			didChange |= showRowsInViewport();
+			if (!rowHeightsDidChange) { break; }
+			updateContentSize();
+		}
+		isLayingOut = wasLayingOut;
+		return didChange;
+	}
 
-					@Override
-					public void mousePressed(MouseEvent e)
-					{
+	private void updateContentSize()
+	{
+		boolean wasLayingOut = isLayingOut;
+		isLayingOut = true;
+		tableView.setBounds(0, 0, getBounds().width, geometry.contentHeight());
+		tableView.setPreferredSize(new Dimension(scrollPane.getBounds().width, geometry.contentHeight()));
+		scrollPane.setPreferredSize(new Dimension(scrollPane.getBounds().width, geometry.contentHeight()));
+		isLayingOut = wasLayingOut;
+	}
 
-					}
+	/**
+	 * Shows the rows and section headers that intersect the viewport, plus <code>overscanRows</code> rows above and below it, and hands every other cell to the reuse pool.
+	 *
+	 * @return <code>true</code> if any row or header was added or moved
+	 */
+	private boolean showRowsInViewport()
+	{
+		if (!_isLoaded) { return false; }
+
+		JViewport viewport = scrollPane.getViewport();
+		int top = viewport.getViewPosition().y;
+		int bottom = top + (viewport.getHeight() > 0 ? viewport.getHeight() : getHeight());
+		int rowCount = geometry.rowCount();
+
+		int firstRow = geometry.rowAt(top);
+		int lastRow = geometry.rowAt(bottom - 1);
+		firstRow = Math.max(0, (firstRow < 0 ? rowCount : firstRow) - overscanRows);
+		lastRow = Math.min(rowCount - 1, (lastRow < 0 ? rowCount - 1 : lastRow) + overscanRows);
+		maximumShownRowCount = Math.max(maximumShownRowCount, lastRow - firstRow + 1);
+
+		boolean didChange = false;
+		Iterator<Map.Entry<Integer, ALJTableCell>> cells = visibleCells.entrySet().iterator();
+		while (cells.hasNext())
+		{
+			Map.Entry<Integer, ALJTableCell> entry = cells.next();
+			if (entry.getKey() < firstRow || entry.getKey() > lastRow)
+			{
+				enqueue(entry.getValue());
+				cells.remove();
+				didChange = true;
+			}
+		}
 
-					@Override
-					public void mouseReleased(MouseEvent e)
-					{
-						if (delegate != null)
-						{ delegate.didSelectItemAtIndexInTable(table, new ALJTableIndex(finalSection, finalItem)); }
-					}
+		for (int row = firstRow; row <= lastRow; row++)
+		{
+			if (!visibleCells.containsKey(row))
+			{
+				ALJTableIndex index = geometry.index(row);
+				ALJTableCell cell = dataSource.cellForRowAtIndexInTable(this, index);
+				show(cell, row, index);
+				didChange = true;
+			}
+		}
 
-					@Override
-					public void mouseEntered(MouseEvent e)
-					{
+		//Headers between the rows that are shown, and any in the viewport with no rows around them
+		int from = firstRow <= lastRow ? Math.min(top, geometry.rowTop(firstRow)) : top;
+		int to = firstRow <= lastRow ? Math.max(bottom, geometry.rowTop(lastRow) + geometry.rowHeight(lastRow)) : bottom;
+		Iterator<Map.Entry<Integer, SectionHeader>> headers = visibleHeaders.entrySet().iterator();
+		while (headers.hasNext())
+		{
+			Map.Entry<Integer, SectionHeader> entry = headers.next();
+			if (!headerIntersects(entry.getKey(), from, to))
+			{
+				entry.getValue().setVisible(false);
+				reusableHeaders.add(entry.getValue());
+				headers.remove();
+				didChange = true;
+			}
+		}
+
+		for (int section = firstRow <= lastRow ? geometry.sectionOf(firstRow) : 0; section < geometry.sectionCount(); section++)
+		{
+			if (geometry.title(section) == null) { continue; }
+			if (geometry.headerTop(section) >= to) { break; }
+			if (headerIntersects(section, from, to) && !visibleHeaders.containsKey(section))
+			{
+				showHeader(section);
+				didChange = true;
+			}
+		}
+		return didChange;
+	}
+
+	private boolean headerIntersects(int section, int from, int to)
+	{
+		return geometry.title(section) != null && geometry.headerTop(section) < to && geometry.headerTop(section) + geometry.headerHeight(section) > from;
+	}
+
+	private void show(ALJTableCell cell, int row, ALJTableIndex index)
+	{
+		cell.delegate = this;
+		cell.currentIndex = index;
+		if (automaticRowHeights)
+		{
+			int height = Math.max(1, cell.getPreferredSize().height);
+			if (height != geometry.rowHeight(row))
+			{
+				geometry.setRowHeight(row, height);
+				rowHeightsDidChange = true;
+			}
+		}
+		if (cell.getParent() == tableView)
+		{
+			cell.setVisible(true);
+		}
+		else
+		{
+			cell.addMouseListener(selectionListener);
+			tableView.add(cell);
+		}
+		//The frame of the cell is set by the next layout of tableView
+		visibleCells.put(row, cell);
+	}
 
-					}
+	/**
+	 * Hides a cell that is no longer shown, and keeps it for <code>dequeueReusableCell(_:)</code> if it has a <code>reuseIdentifier</code>.  The pool for each identifier holds as many cells as the table has shown at once, and cells beyond that are discarded.
+	 */
+	private void enqueue(ALJTableCell cell)
+	{
+		cell.currentIndex = null;
+		ArrayDeque<ALJTableCell> cells = cell.reuseIdentifier() == null ? null : reusableCells.computeIfAbsent(cell.reuseIdentifier(), identifier -> new ArrayDeque<>());
+		if (cells == null || cells.size() >= Math.max(1, maximumShownRowCount))
+		{
+			cell.removeMouseListener(selectionListener);
+			tableView.remove(cell);
+			return;
+		}
+		cell.setVisible(false);
+		cells.add(cell);
+	}
 
-					@Override
-					public void mouseExited(MouseEvent e)
-					{
+	private void showHeader(int section)
+	{
+		SectionHeader header = reusableHeaders.pollLast();
+		if (header == null)
+		{
+			header = new SectionHeader();
+			tableView.add(header);
+		}
+		header.setText(geometry.title(section));
+		header.setVisible(true);
+		visibleHeaders.put(section, header);
+	}
 
-					}
-				});
+	/**
+	 * @return the height of a section header showing <code>title</code>
+	 */
+	int headerHeight(String title)
+	{
+		if (headerPrototype == null)
+		{
+			headerPrototype = new SectionHeader();
+		}
+		headerPrototype.setText(title);
+		return headerPrototype.getPreferredSize().height;
+	}
 
-				tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.leading, LayoutRelation.equal, tableView, LayoutAttribute.leading, 1.0, 0));
-				tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.trailing, LayoutRelation.equal, tableView, LayoutAttribute.trailing, 1.0, 0));
+	boolean hasVariableRowHeights()
+	{
+		return automaticRowHeights || overridesRowHeights.get(dataSource.getClass());
+	}
 
-				if (dataSource.heightForRow(this, section) > 0)
-				{
-					tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, dataSource.heightForRow(this, section)));
-				}
-				else
-				{
-					if (heightForRow > 44)
-					{
-						tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, heightForRow));
-					}
-					else
-					{
-						tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 44));
-					}
-				}
-				if (previous == null)
-				{
-					tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.top, LayoutRelation.equal, tableView, LayoutAttribute.top, 1.0, 0));
-				}
-				else
-				{
-					tableView.addConstraint(new LayoutConstraint(cell, LayoutAttribute.top, LayoutRelation.equal, previous, LayoutAttribute.bottom, 1.0, ((previous instanceof JLabel) ? 8 : 0)));
-				}
+	/**
+	 * @return the height of the row at <code>index</code> before its cell is measured
+	 */
+	int rowHeight(ALJTableIndex index)
+	{
+		int height = overridesRowHeights.get(dataSource.getClass()) ? dataSource.heightForRowAtIndex(this, index) : 0;
+		return height > 0 ? height : rowHeight(index.section);
+	}
 
-				previous = cell;
-			}
-		}
-
-		if (previous != null)
-		{ setPreferredSize(new Dimension(tableView.getPreferredSize().width, previous.getBounds().y + previous.getPreferredSize().height)); }
-		_isLoaded = true;
-		layoutSubviews();
+	/**
+	 * @return the height of every row in <code>section</code>
+	 */
+	int rowHeight(int section)
+	{
+		if (dataSource.heightForRow(this, section) > 0)
+		{
+			return dataSource.heightForRow(this, section);
+		}
+		return heightForRow > 44 ? heightForRow : 44;
 	}
 
 	@Override
@@ -225,7 +677,7 @@ public class ALJTable extends ALJPanel implements ComponentListener, ALJTableCel
 			case delete:
 			{
 				dataSource.tableView(this, ALJTableCellEditingStyle.delete, atIndex);
-				reloadData();
+				deleteRows(atIndex);
 				break;
 			}
 
@@ -30,9 +30,19 @@ public class ALJTableCell extends ALJPanel implements MLMDelegate
 	ALJTableCellDelegate delegate;
 	private ALJTableCellAccessoryViewType _accessoryViewType = ALJTableCellAccessoryViewType.none;
 	private boolean isClicked = false;
+	private final String reuseIdentifier;
 
 	public ALJTableCell(ALJTableCellAccessoryViewType accessoryViewType)
 	{
+		this(accessoryViewType, null);
+	}
+
+	/**
+	 * @param reuseIdentifier identifies cells that look alike, so a cell scrolled out of view can be handed back by <code>ALJTable.dequeueReusableCell(_:)</code> to show another row.  Cells without one are discarded when they are scrolled out of view.
+	 */
+	public ALJTableCell(ALJTableCellAccessoryViewType accessoryViewType, String reuseIdentifier)
+	{
+		this.reuseIdentifier = reuseIdentifier;
 		setBackground(Color.white);
 		titleLabel = new JLabel();
 		titleLabel.setFocusable(false);
@@ -125,6 +135,24 @@ public class ALJTableCell extends ALJPanel implements MLMDelegate
 		}
 	}
 
+	public String reuseIdentifier()
+	{
+		return reuseIdentifier;
+	}
+
+	/**
+	 * Called when the cell is dequeued to show another row, before the data source configures it.  Subclasses can override this to clear state the data source does not always set.
+	 */
+	protected void prepareForReuse()
+	{
+		isClicked = false;
+		if (accessoryView != null)
+		{
+			accessoryView.setOpaque(false);
+			accessoryView.setBackground(new Color(0, 0, 0, 0));
+		}
+	}
+
 	protected void registerComponentForClicking(Component component)
 	{
 		component.addMouseListener(new MouseListenerManager(this));
@@ -9,6 +9,16 @@ public interface ALJTableDataSource
 
 	int heightForRow(ALJTable table, int inSection);
 
+	/**
+	 * Override this for rows that are not all the same height within a section.  Tables only ask for the height of each row when this is overridden, so tables that do not need it stay independent of their number of rows.
+	 *
+	 * @return the height of the row at <code>index</code>, or 0 to use <code>heightForRow(_:_:)</code>
+	 */
+	default int heightForRowAtIndex(ALJTable table, ALJTableIndex index)
+	{
+		return 0;
+	}
+
 	ALJTableCell cellForRowAtIndexInTable(ALJTable table, ALJTableIndex index);
 
 	String titleForHeaderInSectionInTable(ALJTable table, int section);
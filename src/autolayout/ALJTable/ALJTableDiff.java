@@ -0,0 +1,146 @@
+package autolayout.ALJTable;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds the rows inserted, deleted, moved and reloaded between two snapshots.
+ * <p>
+ * Identifiers are unique, so the first pass of Heckel's algorithm is enough to match every item of the new snapshot to its row in the old one, with one hash lookup each.  Items that are only in the new snapshot are inserted, items that are only in the old one are deleted, and items that changed section are moved.  Within a section, the longest run of items that kept their order stays in place, and every other item is moved, which is the fewest moves that give the new order.  That run is found in <code>O(n)</code> when no item of the section changed order, which is the common case of rows being inserted, deleted or reloaded, and in <code>O(n log n)</code> otherwise.
+ * <p>
+ * Nothing here touches a component, so a diff can be computed on any thread.
+ */
+final class ALJTableDiff
+{
+	private ALJTableDiff()
+	{
+	}
+
+	/**
+	 * @return the update that turns the rows of <code>oldSnapshot</code> into the rows of <code>newSnapshot</code>, or <code>null</code> if the sections are not the same, and the table needs to be reloaded instead
+	 */
+	static <S, I> ALJTableUpdate between(ALJTableSnapshot<S, I> oldSnapshot, ALJTableSnapshot<S, I> newSnapshot)
+	{
+		if (!oldSnapshot.sectionIdentifiers().equals(newSnapshot.sectionIdentifiers())) { return null; }
+
+		ALJTableUpdate update = new ALJTableUpdate();
+		int sectionCount = oldSnapshot.numberOfSections();
+		HashMap<I, ALJTableIndex> oldIndexes = new HashMap<>(oldSnapshot.numberOfItems() * 4 / 3 + 1);
+		for (int section = 0; section < sectionCount; section++)
+		{
+			List<I> items = oldSnapshot.items(section);
+			for (int item = 0; item < items.size(); item++)
+			{
+				if (!newSnapshot.contains(items.get(item)))
+				{
+					update.delete(new ALJTableIndex(section, item));
+				}
+				else
+				{
+					oldIndexes.put(items.get(item), new ALJTableIndex(section, item));
+				}
+			}
+		}
+
+		for (int section = 0; section < sectionCount; section++)
+		{
+			List<I> items = newSnapshot.items(section);
+			//The new and old item of every row that stayed in this section, in their new order
+			int[] newItems = new int[items.size()];
+			int[] oldItems = new int[items.size()];
+			int stayedCount = 0;
+			boolean isInOrder = true;
+			for (int item = 0; item < items.size(); item++)
+			{
+				ALJTableIndex oldIndex = oldIndexes.get(items.get(item));
+				if (oldIndex == null)
+				{
+					update.insert(new ALJTableIndex(section, item));
+				}
+				else if (oldIndex.section != section)
+				{
+					move(update, oldIndex, new ALJTableIndex(section, item), newSnapshot.isReloaded(items.get(item)));
+				}
+				else
+				{
+					isInOrder &= stayedCount == 0 || oldIndex.item > oldItems[stayedCount - 1];
+					newItems[stayedCount] = item;
+					oldItems[stayedCount] = oldIndex.item;
+					stayedCount++;
+				}
+			}
+
+			boolean[] isInPlace = isInOrder ? null : longestIncreasingRun(oldItems, stayedCount);
+			for (int index = 0; index < stayedCount; index++)
+			{
+				ALJTableIndex oldIndex = new ALJTableIndex(section, oldItems[index]);
+				boolean isReloaded = newSnapshot.isReloaded(items.get(newItems[index]));
+				if (isInPlace == null || isInPlace[index])
+				{
+					if (isReloaded) { update.reload(oldIndex); }
+				}
+				else
+				{
+					move(update, oldIndex, new ALJTableIndex(section, newItems[index]), isReloaded);
+				}
+			}
+		}
+		return update;
+	}
+
+	/**
+	 * A moved row keeps its cell, so a row that is also reloaded is deleted and inserted instead, and gets a new one.
+	 */
+	private static void move(ALJTableUpdate update, ALJTableIndex from, ALJTableIndex to, boolean isReloaded)
+	{
+		if (isReloaded)
+		{
+			update.delete(from);
+			update.insert(to);
+		}
+		else
+		{
+			update.move(from, to);
+		}
+	}
+
+	/**
+	 * Patience sorting, keeping the predecessor of each value so the run can be followed back from its end.
+	 *
+	 * @return which of the first <code>count</code> values are in one longest strictly increasing subsequence of them
+	 */
+	private static boolean[] longestIncreasingRun(int[] values, int count)
+	{
+		//tails[length - 1] is the position of the smallest value that ends an increasing run of that length
+		int[] tails = new int[count];
+		int[] previous = new int[count];
+		int length = 0;
+		for (int index = 0; index < count; index++)
+		{
+			int low = 0;
+			int high = length;
+			while (low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if (values[tails[middle]] < values[index])
+				{
+					low = middle + 1;
+				}
+				else
+				{
+					high = middle;
+				}
+			}
+			previous[index] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = index;
+			if (low == length) { length++; }
+		}
+
+		boolean[] isInRun = new boolean[count];
+		for (int index = length > 0 ? tails[length - 1] : -1; index >= 0; index = previous[index])
+		{
+			isInRun[index] = true;
+		}
+		return isInRun;
+	}
+}
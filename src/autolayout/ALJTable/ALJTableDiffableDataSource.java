@@ -0,0 +1,219 @@
+package autolayout.ALJTable;
+
+import java.awt.EventQueue;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static autolayout.LayoutEngine.getClassAndHashCode;
+
+/**
+ * An <code>ALJTableDataSource</code> whose rows come from an <code>ALJTableSnapshot</code> of section and item identifiers.
+ * <p>
+ * Instead of telling the table which rows changed, build a snapshot of every row as it should be and <code>apply(_:)</code> it.  The rows inserted, deleted, moved and reloaded since the last snapshot are found from their identifiers, and shown with <code>ALJTable.performBatchUpdates(_:)</code>, so only the rows that changed ask for a cell:
+ * <pre>
+ * ALJTableSnapshot&lt;String, Long&gt; snapshot = new ALJTableSnapshot&lt;&gt;();
+ * snapshot.appendSections(Collections.singletonList("orders"));
+ * snapshot.appendItems(orderIds);
+ * snapshot.reloadItems(changedOrderIds);
+ * dataSource.apply(snapshot);
+ * </pre>
+ * Snapshots with at least <code>BACKGROUND_DIFF_THRESHOLD</code> items are compared on the common <code>ForkJoinPool</code>, and only the resulting update is applied on the event dispatch thread.  Snapshots are always shown in the order they were applied in, so a small snapshot applied after a large one waits for it.  If comparing two snapshots fails, the error is printed and the table is reloaded with the new one instead, and the snapshots applied after it are still shown.  <code>apply(_:)</code> must be called on the event dispatch thread.
+ * <p>
+ * Changing the sections themselves reloads the table.  Subclasses can override <code>titleForHeaderInSectionInTable(_:_:)</code> and the other methods of <code>ALJTableDataSource</code> as usual.
+ *
+ * @param <S> the type of the section identifiers
+ * @param <I> the type of the item identifiers
+ */
+@SuppressWarnings("unused")
+public class ALJTableDiffableDataSource<S, I> implements ALJTableDataSource
+{
+	/**
+	 * The number of items a snapshot, or the one before it, needs to have before it is compared off the event dispatch thread.  Below this, handing the work to another thread costs more than it saves.
+	 */
+	public static final int BACKGROUND_DIFF_THRESHOLD = 10_000;
+
+	public interface CellProvider<I>
+	{
+		ALJTableCell cellForItem(ALJTable table, ALJTableIndex index, I item);
+	}
+
+	private final ALJTable table;
+	private final CellProvider<I> cellProvider;
+	//The snapshot the table shows, and the last one applied, which the next one is compared with
+	private ALJTableSnapshot<S, I> snapshot = new ALJTableSnapshot<>();
+	private ALJTableSnapshot<S, I> latestSnapshot = snapshot;
+	//Diffs run one after another, so their updates reach the event dispatch thread in order
+	private CompletableFuture<Void> diffs = CompletableFuture.completedFuture(null);
+	private int pendingDiffCount = 0;
+
+	/**
+	 * Makes this the data source of <code>table</code>.
+	 */
+	public ALJTableDiffableDataSource(ALJTable table, CellProvider<I> cellProvider)
+	{
+		this.table = table;
+		this.cellProvider = cellProvider;
+		table.dataSource = this;
+	}
+
+	/**
+	 * @return a copy of the snapshot the table shows, to change and apply
+	 */
+	public ALJTableSnapshot<S, I> snapshot()
+	{
+		ALJTableSnapshot<S, I> copy = new ALJTableSnapshot<>(snapshot);
+		copy.clearReloadedItems();
+		return copy;
+	}
+
+	public void apply(ALJTableSnapshot<S, I> snapshot)
+	{
+		apply(snapshot, null);
+	}
+
+	/**
+	 * Shows the rows of <code>snapshot</code>, changing only the rows that are not the same as in the last snapshot applied.  The table keeps <code>snapshot</code> rather than a copy of it, so applying a snapshot that is compared off the event dispatch thread does nothing there that is proportional to the number of rows, and it must not be changed afterwards.  Take a new one from <code>snapshot()</code> instead.
+	 *
+	 * @param completion run on the event dispatch thread once the table shows the snapshot, or <code>null</code>
+	 */
+	public void apply(ALJTableSnapshot<S, I> snapshot, Runnable completion)
+	{
+		ALJTableSnapshot<S, I> oldSnapshot = latestSnapshot;
+		ALJTableSnapshot<S, I> newSnapshot = snapshot;
+		latestSnapshot = newSnapshot;
+
+		if (pendingDiffCount == 0 && Math.max(oldSnapshot.numberOfItems(), newSnapshot.numberOfItems()) < BACKGROUND_DIFF_THRESHOLD)
+		{
+			ALJTableUpdate update;
+			try
+			{
+				update = ALJTableDiff.between(oldSnapshot, newSnapshot);
+			}
+			catch (RuntimeException e)
+			{
+				diffDidFail(e);
+				update = null;
+			}
+			show(newSnapshot, update, completion);
+			return;
+		}
+
+		pendingDiffCount++;
+		//handle() completes normally whether or not the diff failed, so the diffs applied after this one still run
+		diffs = diffs.thenApplyAsync(ignored -> ALJTableDiff.between(oldSnapshot, newSnapshot)).handle((update, failure) -> {
+			EventQueue.invokeLater(() -> {
+				pendingDiffCount--;
+				if (failure != null)
+				{
+					diffDidFail(failure.getCause() != null ? failure.getCause() : failure);
+				}
+				show(newSnapshot, failure == null ? update : null, completion);
+			});
+			return null;
+		});
+	}
+
+	private void diffDidFail(Throwable failure)
+	{
+		System.out.println("Comparing snapshots of " + getClassAndHashCode(table) + " failed with " + failure.toString() + ".  Reloading every row instead.");
+	}
+
+	private void show(ALJTableSnapshot<S, I> newSnapshot, ALJTableUpdate update, Runnable completion)
+	{
+		snapshot = newSnapshot;
+		if (table.dataSource == this)
+		{
+			if (update == null || !table.isLoaded())
+			{
+				table.reloadData();
+			}
+			else
+			{
+				table.apply(update);
+			}
+		}
+		if (completion != null) { completion.run(); }
+	}
+
+	/**
+	 * @return the identifier of the item at <code>index</code> in the snapshot the table shows, or <code>null</code> if there is none
+	 */
+	public I itemIdentifier(ALJTableIndex index)
+	{
+		if (index == null || index.section < 0 || index.section >= snapshot.numberOfSections()) { return null; }
+		List<I> items = snapshot.items(index.section);
+		return index.item >= 0 && index.item < items.size() ? items.get(index.item) : null;
+	}
+
+	/**
+	 * Called after the row of <code>item</code> was edited from its accessory view.  Deleted items are already removed from the snapshot.
+	 */
+	protected void commitEditing(ALJTableCellEditingStyle style, I item)
+	{
+	}
+
+	@Override
+	public int numberOfSectionsIn(ALJTable table)
+	{
+		return snapshot.numberOfSections();
+	}
+
+	@Override
+	public int numberOfRowsInSectionForTable(ALJTable table, int section)
+	{
+		return snapshot.items(section).size();
+	}
+
+	@Override
+	public int heightForRow(ALJTable table, int inSection)
+	{
+		return 0;
+	}
+
+	@Override
+	public ALJTableCell cellForRowAtIndexInTable(ALJTable table, ALJTableIndex index)
+	{
+		return cellProvider.cellForItem(table, index, itemIdentifier(index));
+	}
+
+	@Override
+	public String titleForHeaderInSectionInTable(ALJTable table, int section)
+	{
+		return null;
+	}
+
+	@Override
+	public String titleForFooterInSectionInTable(ALJTable table, int section)
+	{
+		return null;
+	}
+
+	@Override
+	public void tableView(ALJTable table, ALJTableCellEditingStyle commit, ALJTableIndex forRowAt)
+	{
+		I item = itemIdentifier(forRowAt);
+		if (item == null) { return; }
+
+		if (commit == ALJTableCellEditingStyle.delete)
+		{
+			//The table deletes the row right after this, so the snapshot it shows loses the item too
+			if (pendingDiffCount == 0)
+			{
+				//No other thread reads the snapshot, and it is also the latest one, so the item is removed from it in place
+				snapshot.deleteItem(forRowAt.section, forRowAt.item);
+			}
+			else
+			{
+				//A diff still running may be reading the snapshot, so it is copied instead.  That diff was compared with the snapshot before, and reloads the table if it no longer adds up.
+				ALJTableSnapshot<S, I> newSnapshot = new ALJTableSnapshot<>(snapshot);
+				newSnapshot.deleteItem(forRowAt.section, forRowAt.item);
+				if (latestSnapshot == snapshot)
+				{
+					latestSnapshot = newSnapshot;
+				}
+				snapshot = newSnapshot;
+			}
+		}
+		commitEditing(commit, item);
+	}
+}
@@ -0,0 +1,420 @@
+package autolayout.ALJTable;
+
+import java.util.Iterator;
+
+/**
+ * Where every row and section header of an <code>ALJTable</code> is, without any of them being a component.
+ * <p>
+ * Rows are numbered across sections, so the first row of a section follows the last row of the one before it.  A section with a title starts with a header <code>HEADER_SPACING</code> below the end of the previous section, and its first row is <code>HEADER_ROW_SPACING</code> below the header.
+ * <p>
+ * When every row of a section has the same height, only the sections are stored, and a row is placed by multiplying its position in the section by the row height.  Finding the section of a row, or the row at an offset, is a binary search over the sections.  When every row has the same height and no section has a header, which is the common case of a plain list, both are a single multiplication or division.
+ * <p>
+ * Tables whose rows have heights of their own keep every height in a Fenwick tree instead.  The tree holds one entry for the header of each section, including the spacing around it, followed by one entry for each row of the section, so a prefix sum over it is the top of a row.  Finding the top of a row, finding the row at an offset, and changing the height of a single row each take <code>O(log n)</code>.
+ */
+final class ALJTableGeometry
+{
+	static final int HEADER_SPACING = 80;
+	static final int HEADER_ROW_SPACING = 8;
+	static final int HEADER_INSET = 40;
+
+	private int sectionCount = 0;
+	private int rowCount = 0;
+	//firstRows[section] is the first row of the section, and firstRows[sectionCount] is rowCount
+	private int[] firstRows = new int[1];
+	private String[] titles = new String[0];
+	private int[] headerTops = new int[0];
+	private int[] headerHeights = new int[0];
+	//Every row of a section has the same height, so the rows of a section are placed from where the first one starts
+	private int[] sectionRowTops = new int[0];
+	private int[] sectionRowHeights = new int[0];
+	//The height of every row when all rows have the same height and no section has a header, or 0
+	private int uniformRowHeight = 0;
+	private int contentHeight = 0;
+
+	//Only used for rows with heights of their own.  Entry firstRows[section] + section is the header of the section, and the rows of the section follow it.
+	private boolean hasVariableRowHeights = false;
+	private int[] heights = new int[0];
+	//1-based, tree[i] is the sum of the heights of the entries in (i - lowestOneBit(i), i]
+	private int[] tree = new int[1];
+
+	/**
+	 * Reads the number of sections and rows, the row heights and the header titles from the data source of <code>table</code>, and places every section.  Rows are placed arithmetically from the section they are in, so this does not depend on the number of rows.
+	 */
+	void reload(ALJTable table, ALJTableDataSource dataSource)
+	{
+		sectionCount = Math.max(0, dataSource.numberOfSectionsIn(table));
+		titles = new String[sectionCount];
+		headerTops = new int[sectionCount];
+		headerHeights = new int[sectionCount];
+		sectionRowTops = new int[sectionCount];
+		sectionRowHeights = new int[sectionCount];
+		uniformRowHeight = sectionCount > 0 ? table.rowHeight(0) : 0;
+
+		int[] rowCounts = new int[sectionCount];
+		for (int section = 0; section < sectionCount; section++)
+		{
+			String title = dataSource.titleForHeaderInSectionInTable(table, section);
+			titles[section] = title == null || title.isEmpty() ? null : title.toUpperCase();
+			if (titles[section] != null)
+			{
+				headerHeights[section] = table.headerHeight(titles[section]);
+				uniformRowHeight = 0;
+			}
+
+			rowCounts[section] = Math.max(0, dataSource.numberOfRowsInSectionForTable(table, section));
+			sectionRowHeights[section] = table.rowHeight(section);
+			if (sectionRowHeights[section] != uniformRowHeight)
+			{
+				uniformRowHeight = 0;
+			}
+		}
+		place(rowCounts);
+
+		hasVariableRowHeights = false;
+		if (table.hasVariableRowHeights())
+		{
+			useVariableRowHeights();
+			for (int section = 0; section < sectionCount; section++)
+			{
+				for (int row = firstRows[section]; row < firstRows[section + 1]; row++)
+				{
+					heights[row + section + 1] = table.rowHeight(new ALJTableIndex(section, row - firstRows[section]));
+				}
+			}
+			buildTree();
+		}
+	}
+
+	/**
+	 * Places every section from the number of rows in it, its header and its row height.
+	 */
+	private void place(int[] rowCounts)
+	{
+		firstRows = new int[sectionCount + 1];
+		rowCount = 0;
+		int y = 0;
+		for (int section = 0; section < sectionCount; section++)
+		{
+			if (titles[section] != null)
+			{
+				headerTops[section] = y + HEADER_SPACING;
+				y = headerTops[section] + headerHeights[section] + HEADER_ROW_SPACING;
+			}
+			firstRows[section] = rowCount;
+			sectionRowTops[section] = y;
+			rowCount += rowCounts[section];
+			y += rowCounts[section] * sectionRowHeights[section];
+		}
+		firstRows[sectionCount] = rowCount;
+		contentHeight = y;
+	}
+
+	/**
+	 * Inserts, deletes and moves the rows of <code>update</code>, and reads the height of every inserted and reloaded row again.  Sections are placed again in <code>O(sections)</code>.  Rows with heights of their own are copied around the rows that changed, and the Fenwick tree is built again, which takes <code>O(n)</code> on plain <code>int</code>s however many rows the update touches.
+	 *
+	 * @param rowCounts the number of rows in each section after the update
+	 */
+	void update(ALJTable table, ALJTableUpdate update, int[] rowCounts)
+	{
+		int[] oldFirstRows = firstRows;
+		int[] oldHeights = heights;
+		place(rowCounts);
+		if (!hasVariableRowHeights) { return; }
+
+		heights = new int[rowCount + sectionCount];
+		for (int section = 0; section < sectionCount; section++)
+		{
+			int oldHeader = oldFirstRows[section] + section;
+			int header = firstRows[section] + section;
+			heights[header] = oldHeights[oldHeader];
+			if (!update.changes(section))
+			{
+				System.arraycopy(oldHeights, oldHeader + 1, heights, header + 1, rowCounts[section]);
+				continue;
+			}
+
+			//The rows that were not deleted keep their order, and fill every item that was not inserted
+			Iterator<Integer> deleted = update.deletedItems(section).iterator();
+			Iterator<Integer> inserted = update.insertedItems(section).iterator();
+			int nextDeleted = deleted.hasNext() ? deleted.next() : -1;
+			int nextInserted = inserted.hasNext() ? inserted.next() : -1;
+			int oldItem = 0;
+			for (int item = 0; item < rowCounts[section]; item++)
+			{
+				if (item == nextInserted)
+				{
+					nextInserted = inserted.hasNext() ? inserted.next() : -1;
+					ALJTableIndex index = new ALJTableIndex(section, item);
+					ALJTableIndex from = update.movedFrom(index);
+					heights[header + 1 + item] = from != null ? oldHeights[oldFirstRows[from.section] + from.section + 1 + from.item] : table.rowHeight(index);
+					continue;
+				}
+				while (oldItem == nextDeleted)
+				{
+					oldItem++;
+					nextDeleted = deleted.hasNext() ? deleted.next() : -1;
+				}
+				heights[header + 1 + item] = oldHeights[oldHeader + 1 + oldItem++];
+			}
+		}
+
+		for (ALJTableIndex reloaded : update.reloadedRows())
+		{
+			ALJTableIndex index = update.newIndex(reloaded);
+			if (index != null)
+			{
+				heights[firstRows[index.section] + index.section + 1 + index.item] = table.rowHeight(index);
+			}
+		}
+		buildTree();
+	}
+
+	boolean hasVariableRowHeights()
+	{
+		return hasVariableRowHeights;
+	}
+
+	/**
+	 * Gives a row a height of its own.  The first time a row is given a height that differs from the rest of its section, the geometry switches to a Fenwick tree, which takes <code>O(n)</code> once.  Every change after that takes <code>O(log n)</code>.
+	 */
+	void setRowHeight(int row, int height)
+	{
+		if (!hasVariableRowHeights)
+		{
+			if (height == rowHeight(row)) { return; }
+			useVariableRowHeights();
+			buildTree();
+		}
+
+		int entry = row + sectionOf(row) + 1;
+		int delta = height - heights[entry];
+		if (delta == 0) { return; }
+
+		heights[entry] = height;
+		contentHeight += delta;
+		for (int index = entry + 1; index < tree.length; index += index & -index)
+		{
+			tree[index] += delta;
+		}
+	}
+
+	/**
+	 * Fills <code>heights</code> from the height of the headers and the row height of each section.
+	 */
+	private void useVariableRowHeights()
+	{
+		hasVariableRowHeights = true;
+		heights = new int[rowCount + sectionCount];
+		for (int section = 0; section < sectionCount; section++)
+		{
+			int header = firstRows[section] + section;
+			heights[header] = titles[section] == null ? 0 : HEADER_SPACING + headerHeights[section] + HEADER_ROW_SPACING;
+			for (int row = firstRows[section]; row < firstRows[section + 1]; row++)
+			{
+				heights[row + section + 1] = sectionRowHeights[section];
+			}
+		}
+	}
+
+	/**
+	 * Builds the Fenwick tree over <code>heights</code> in <code>O(n)</code>, by adding each node to its parent once.
+	 */
+	private void buildTree()
+	{
+		tree = new int[heights.length + 1];
+		contentHeight = 0;
+		for (int index = 1; index < tree.length; index++)
+		{
+			tree[index] += heights[index - 1];
+			contentHeight += heights[index - 1];
+			int parent = index + (index & -index);
+			if (parent < tree.length)
+			{
+				tree[parent] += tree[index];
+			}
+		}
+	}
+
+	/**
+	 * @return the sum of the heights of the first <code>count</code> entries
+	 */
+	private int prefixHeight(int count)
+	{
+		int sum = 0;
+		for (int index = count; index > 0; index -= index & -index)
+		{
+			sum += tree[index];
+		}
+		return sum;
+	}
+
+	int sectionCount()
+	{
+		return sectionCount;
+	}
+
+	int rowCount()
+	{
+		return rowCount;
+	}
+
+	int rowCount(int section)
+	{
+		return firstRows[section + 1] - firstRows[section];
+	}
+
+	/**
+	 * @return the height of every row and header, which is the height the table view needs to be
+	 */
+	int contentHeight()
+	{
+		return contentHeight;
+	}
+
+	int rowTop(int row)
+	{
+		if (hasVariableRowHeights) { return prefixHeight(row + sectionOf(row) + 1); }
+		if (uniformRowHeight > 0) { return row * uniformRowHeight; }
+
+		int section = sectionOf(row);
+		return sectionRowTops[section] + (row - firstRows[section]) * sectionRowHeights[section];
+	}
+
+	int rowHeight(int row)
+	{
+		if (hasVariableRowHeights) { return heights[row + sectionOf(row) + 1]; }
+		return uniformRowHeight > 0 ? uniformRowHeight : sectionRowHeights[sectionOf(row)];
+	}
+
+	/**
+	 * @return the row at <code>y</code>, the row after it if <code>y</code> is above the rows of a section, or -1 if there are no rows at or after <code>y</code>
+	 */
+	int rowAt(int y)
+	{
+		if (rowCount == 0 || y >= contentHeight) { return -1; }
+		if (y < 0) { return 0; }
+		if (hasVariableRowHeights) { return rowAtVariableHeight(y); }
+		if (uniformRowHeight > 0) { return y / uniformRowHeight; }
+
+		//The last section whose rows start at or above y
+		int low = 0;
+		int high = sectionCount - 1;
+		while (low < high)
+		{
+			int middle = (low + high + 1) >>> 1;
+			if (sectionRowTops[middle] <= y)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+		if (sectionRowTops[low] > y) { return 0; }
+
+		int item = (y - sectionRowTops[low]) / sectionRowHeights[low];
+		if (firstRows[low] + item < firstRows[low + 1])
+		{
+			return firstRows[low] + item;
+		}
+		//Below the last row of the section, in the space above the next header
+		return firstRows[low + 1] < rowCount ? firstRows[low + 1] : -1;
+	}
+
+	/**
+	 * Descends the Fenwick tree to the entry containing <code>y</code>.  Entries with no height, such as the header of a section without a title, are passed over.
+	 */
+	private int rowAtVariableHeight(int y)
+	{
+		int entry = 0;
+		int remaining = y;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1)
+		{
+			if (entry + step < tree.length && tree[entry + step] <= remaining)
+			{
+				entry += step;
+				remaining -= tree[entry];
+			}
+		}
+
+		//The last section whose header is at or before the entry
+		int low = 0;
+		int high = sectionCount - 1;
+		while (low < high)
+		{
+			int middle = (low + high + 1) >>> 1;
+			if (firstRows[middle] + middle <= entry)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+
+		int header = firstRows[low] + low;
+		if (entry > header) { return firstRows[low] + entry - header - 1; }
+		//On the header, so the first row below it, which may be in a later section
+		return firstRows[low] < rowCount ? firstRows[low] : -1;
+	}
+
+	/**
+	 * @return the section <code>row</code> is in
+	 */
+	int sectionOf(int row)
+	{
+		//The last section starting at or before the row, which skips empty sections
+		int low = 0;
+		int high = sectionCount - 1;
+		while (low < high)
+		{
+			int middle = (low + high + 1) >>> 1;
+			if (firstRows[middle] <= row)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	int firstRow(int section)
+	{
+		return firstRows[section];
+	}
+
+	int row(ALJTableIndex index)
+	{
+		return firstRows[index.section] + index.item;
+	}
+
+	ALJTableIndex index(int row)
+	{
+		int section = sectionOf(row);
+		return new ALJTableIndex(section, row - firstRows[section]);
+	}
+
+	/**
+	 * @return the uppercased title of the header of <code>section</code>, or <code>null</code> if it does not have one
+	 */
+	String title(int section)
+	{
+		return titles[section];
+	}
+
+	int headerTop(int section)
+	{
+		if (hasVariableRowHeights) { return prefixHeight(firstRows[section] + section) + HEADER_SPACING; }
+		return headerTops[section];
+	}
+
+	int headerHeight(int section)
+	{
+		return headerHeights[section];
+	}
+}
@@ -6,9 +6,29 @@ public class ALJTableIndex
 	public final int item;
 	public final int section;
 
-	ALJTableIndex(int section, int item)
+	public ALJTableIndex(int section, int item)
 	{
 		this.item = item;
 		this.section = section;
 	}
+
+	@Override
+	public boolean equals(Object object)
+	{
+		if (!(object instanceof ALJTableIndex)) { return false; }
+		ALJTableIndex index = (ALJTableIndex) object;
+		return item == index.item && section == index.section;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * section + item;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "[" + section + ", " + item + "]";
+	}
 }
@@ -0,0 +1,234 @@
+package autolayout.ALJTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static autolayout.LayoutEngine.getClassAndHashCode;
+
+/**
+ * The sections and rows of an <code>ALJTable</code>, as identifiers, for <code>ALJTableDiffableDataSource.apply(_:)</code>.
+ * <p>
+ * Every section and item identifier is unique within a snapshot, and stays the same for as long as it stands for the same section or row, so the rows that were inserted, deleted and moved between two snapshots can be found from their identifiers.  Identifiers need <code>equals</code> and <code>hashCode</code>, and should not hold the content of a row.  When the content of a row changes without its identifier changing, pass it to <code>reloadItems(_:)</code>.
+ *
+ * @param <S> the type of the section identifiers
+ * @param <I> the type of the item identifiers
+ */
+@SuppressWarnings("unused")
+public final class ALJTableSnapshot<S, I>
+{
+	private final ArrayList<S> sections = new ArrayList<>();
+	private final ArrayList<ArrayList<I>> items = new ArrayList<>();
+	private final HashMap<S, Integer> sectionIndexes = new HashMap<>();
+	//The section of every item, which also keeps every item unique
+	private final HashMap<I, S> itemSections = new HashMap<>();
+	private final HashSet<I> reloadedItems = new HashSet<>();
+
+	public ALJTableSnapshot()
+	{
+	}
+
+	/**
+	 * Copies the sections, items and reloaded items of <code>snapshot</code>.
+	 */
+	public ALJTableSnapshot(ALJTableSnapshot<S, I> snapshot)
+	{
+		sections.addAll(snapshot.sections);
+		for (ArrayList<I> sectionItems : snapshot.items)
+		{
+			items.add(new ArrayList<>(sectionItems));
+		}
+		sectionIndexes.putAll(snapshot.sectionIndexes);
+		itemSections.putAll(snapshot.itemSections);
+		reloadedItems.addAll(snapshot.reloadedItems);
+	}
+
+	public void appendSections(List<S> identifiers)
+	{
+		for (S identifier : identifiers)
+		{
+			if (sectionIndexes.containsKey(identifier))
+			{
+				System.out.println(getClassAndHashCode(this) + " already has section " + identifier + ".  Section identifiers need to be unique.");
+				continue;
+			}
+			sectionIndexes.put(identifier, sections.size());
+			sections.add(identifier);
+			items.add(new ArrayList<>());
+		}
+	}
+
+	/**
+	 * Appends items to the last section.
+	 */
+	public void appendItems(List<I> identifiers)
+	{
+		if (sections.isEmpty())
+		{
+			System.out.println(getClassAndHashCode(this) + " does not have a section to append items to.");
+			return;
+		}
+		appendItems(identifiers, sections.get(sections.size() - 1));
+	}
+
+	public void appendItems(List<I> identifiers, S section)
+	{
+		Integer sectionIndex = sectionIndexes.get(section);
+		if (sectionIndex == null)
+		{
+			System.out.println(getClassAndHashCode(this) + " does not have section " + section + ".");
+			return;
+		}
+
+		ArrayList<I> sectionItems = items.get(sectionIndex);
+		sectionItems.ensureCapacity(sectionItems.size() + identifiers.size());
+		for (I identifier : identifiers)
+		{
+			if (itemSections.putIfAbsent(identifier, section) != null)
+			{
+				System.out.println(getClassAndHashCode(this) + " already has item " + identifier + ".  Item identifiers need to be unique.");
+				continue;
+			}
+			sectionItems.add(identifier);
+		}
+	}
+
+	public void deleteItems(List<I> identifiers)
+	{
+		HashSet<I> deleted = new HashSet<>();
+		HashSet<S> sectionsWithDeletions = new HashSet<>();
+		for (I identifier : identifiers)
+		{
+			S section = itemSections.remove(identifier);
+			if (section != null)
+			{
+				deleted.add(identifier);
+				sectionsWithDeletions.add(section);
+				reloadedItems.remove(identifier);
+			}
+		}
+		//One pass over each section the items were in, rather than one for each item
+		for (S section : sectionsWithDeletions)
+		{
+			items.get(sectionIndexes.get(section)).removeIf(deleted::contains);
+		}
+	}
+
+	/**
+	 * Deletes the item at <code>item</code> in the section at <code>section</code>, without looking for it in every section.
+	 */
+	void deleteItem(int section, int item)
+	{
+		I identifier = items.get(section).remove(item);
+		itemSections.remove(identifier);
+		reloadedItems.remove(identifier);
+	}
+
+	public void deleteSections(List<S> identifiers)
+	{
+		HashSet<S> deleted = new HashSet<>(identifiers);
+		for (int index = sections.size() - 1; index >= 0; index--)
+		{
+			if (deleted.contains(sections.get(index)))
+			{
+				for (I identifier : items.get(index))
+				{
+					itemSections.remove(identifier);
+					reloadedItems.remove(identifier);
+				}
+				sections.remove(index);
+				items.remove(index);
+			}
+		}
+		sectionIndexes.clear();
+		for (int index = 0; index < sections.size(); index++)
+		{
+			sectionIndexes.put(sections.get(index), index);
+		}
+	}
+
+	public void deleteAllItems()
+	{
+		sections.clear();
+		items.clear();
+		sectionIndexes.clear();
+		itemSections.clear();
+		reloadedItems.clear();
+	}
+
+	/**
+	 * Marks items whose content changed, so their rows ask the data source for a cell again when the snapshot is applied.  Rows that are not reloaded keep the cell showing them.
+	 */
+	public void reloadItems(List<I> identifiers)
+	{
+		for (I identifier : identifiers)
+		{
+			if (!itemSections.containsKey(identifier))
+			{
+				System.out.println(getClassAndHashCode(this) + " does not have item " + identifier + " to reload.");
+				continue;
+			}
+			reloadedItems.add(identifier);
+		}
+	}
+
+	public int numberOfSections()
+	{
+		return sections.size();
+	}
+
+	public int numberOfItems()
+	{
+		return itemSections.size();
+	}
+
+	public int numberOfItemsInSection(S section)
+	{
+		Integer sectionIndex = sectionIndexes.get(section);
+		return sectionIndex == null ? 0 : items.get(sectionIndex).size();
+	}
+
+	public List<S> sectionIdentifiers()
+	{
+		return Collections.unmodifiableList(sections);
+	}
+
+	public List<I> itemIdentifiersInSection(S section)
+	{
+		Integer sectionIndex = sectionIndexes.get(section);
+		return sectionIndex == null ? Collections.emptyList() : Collections.unmodifiableList(items.get(sectionIndex));
+	}
+
+	/**
+	 * @return the section <code>item</code> is in, or <code>null</code> if it is not in the snapshot
+	 */
+	public S sectionIdentifierForItem(I item)
+	{
+		return itemSections.get(item);
+	}
+
+	/**
+	 * @return the items of the section at <code>section</code>, which the caller must not change
+	 */
+	List<I> items(int section)
+	{
+		return items.get(section);
+	}
+
+	boolean contains(I item)
+	{
+		return itemSections.containsKey(item);
+	}
+
+	boolean isReloaded(I item)
+	{
+		return reloadedItems.contains(item);
+	}
+
+	void clearReloadedItems()
+	{
+		reloadedItems.clear();
+	}
+}
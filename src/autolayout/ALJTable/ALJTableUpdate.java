@@ -0,0 +1,159 @@
+package autolayout.ALJTable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The rows inserted, deleted, reloaded and moved by one call to <code>ALJTable.performBatchUpdates(_:)</code>.
+ * <p>
+ * Deleted and reloaded rows are indexes before the update, and inserted rows are indexes after it.  A move is recorded as a deletion of the row it is moved from and an insertion of the row it is moved to, so the rows that are not touched keep their order and fill every other index, the same way they would for separate deletions and insertions.
+ */
+final class ALJTableUpdate
+{
+	private static final TreeSet<Integer> emptyItems = new TreeSet<>();
+
+	//The items deleted from and inserted into each section, including the rows that were moved
+	private final HashMap<Integer, TreeSet<Integer>> deletedItems = new HashMap<>();
+	private final HashMap<Integer, TreeSet<Integer>> insertedItems = new HashMap<>();
+	private final HashSet<ALJTableIndex> reloadedRows = new HashSet<>();
+	//Where each moved row is moved to, and where each moved row came from
+	private final HashMap<ALJTableIndex, ALJTableIndex> movedTo = new HashMap<>();
+	private final HashMap<ALJTableIndex, ALJTableIndex> movedFrom = new HashMap<>();
+
+	void insert(ALJTableIndex index)
+	{
+		insertedItems.computeIfAbsent(index.section, section -> new TreeSet<>()).add(index.item);
+	}
+
+	void delete(ALJTableIndex index)
+	{
+		deletedItems.computeIfAbsent(index.section, section -> new TreeSet<>()).add(index.item);
+	}
+
+	void reload(ALJTableIndex index)
+	{
+		reloadedRows.add(index);
+	}
+
+	void move(ALJTableIndex from, ALJTableIndex to)
+	{
+		delete(from);
+		insert(to);
+		movedTo.put(from, to);
+		movedFrom.put(to, from);
+	}
+
+	boolean isEmpty()
+	{
+		return deletedItems.isEmpty() && insertedItems.isEmpty() && reloadedRows.isEmpty();
+	}
+
+	/**
+	 * @return <code>true</code> if any row of <code>section</code> was inserted or deleted, so the rows after it are at other indexes
+	 */
+	boolean changes(int section)
+	{
+		return deletedItems.containsKey(section) || insertedItems.containsKey(section);
+	}
+
+	Set<Integer> deletedItems(int section)
+	{
+		return deletedItems.getOrDefault(section, emptyItems);
+	}
+
+	Set<Integer> insertedItems(int section)
+	{
+		return insertedItems.getOrDefault(section, emptyItems);
+	}
+
+	Set<ALJTableIndex> reloadedRows()
+	{
+		return Collections.unmodifiableSet(reloadedRows);
+	}
+
+	boolean isReloaded(ALJTableIndex index)
+	{
+		return reloadedRows.contains(index);
+	}
+
+	/**
+	 * @return the index a moved row was at before the update, or <code>null</code> if the row at <code>index</code> was not moved there
+	 */
+	ALJTableIndex movedFrom(ALJTableIndex index)
+	{
+		return movedFrom.get(index);
+	}
+
+	/**
+	 * Finds where a row ends up, from the number of rows deleted before it and the rows inserted at or before where it would be.  This takes <code>O(k)</code> for <code>k</code> edits in its section, and does not depend on the number of rows.
+	 *
+	 * @param index the index of a row before the update
+	 * @return the index of the row after the update, or <code>null</code> if it was deleted
+	 */
+	ALJTableIndex newIndex(ALJTableIndex index)
+	{
+		ALJTableIndex to = movedTo.get(index);
+		if (to != null) { return to; }
+
+		TreeSet<Integer> deleted = deletedItems.get(index.section);
+		if (deleted != null && deleted.contains(index.item)) { return null; }
+
+		int item = index.item - (deleted == null ? 0 : deleted.headSet(index.item).size());
+		TreeSet<Integer> inserted = insertedItems.get(index.section);
+		if (inserted != null)
+		{
+			for (int insertedItem : inserted)
+			{
+				if (insertedItem > item) { break; }
+				item++;
+			}
+		}
+		return item == index.item ? index : new ALJTableIndex(index.section, item);
+	}
+
+	/**
+	 * Checks the update against the number of rows in each section before and after it.
+	 *
+	 * @return a description of the first row or section that does not add up, or <code>null</code> if the update can be applied
+	 */
+	String problem(int[] oldRowCounts, int[] newRowCounts)
+	{
+		String section = outOfRange(deletedItems, oldRowCounts);
+		if (section != null) { return "deletes a row that is not in section " + section; }
+		section = outOfRange(insertedItems, newRowCounts);
+		if (section != null) { return "inserts a row that is not in section " + section; }
+		for (ALJTableIndex index : reloadedRows)
+		{
+			if (index.section < 0 || index.section >= oldRowCounts.length || index.item < 0 || index.item >= oldRowCounts[index.section])
+			{ return "reloads row " + index + ", which does not exist"; }
+		}
+
+		for (int index = 0; index < oldRowCounts.length; index++)
+		{
+			int deleted = deletedItems(index).size();
+			int inserted = insertedItems(index).size();
+			if (oldRowCounts[index] - deleted + inserted != newRowCounts[index])
+			{
+				return "section " + index + " has " + newRowCounts[index] + " rows after the update, but had " + oldRowCounts[index] + " rows before " + deleted + " were deleted and " + inserted + " were inserted";
+			}
+		}
+		return null;
+	}
+
+	private static String outOfRange(HashMap<Integer, TreeSet<Integer>> items, int[] rowCounts)
+	{
+		for (Map.Entry<Integer, TreeSet<Integer>> entry : items.entrySet())
+		{
+			int section = entry.getKey();
+			if (section < 0 || section >= rowCounts.length || entry.getValue().first() < 0 || entry.getValue().last() >= rowCounts[section])
+			{
+				return String.valueOf(section);
+			}
+		}
+		return null;
+	}
+}
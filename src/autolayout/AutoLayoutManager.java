@@ -0,0 +1,292 @@
+package autolayout;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Collection;
+
+/**
+ * A <code>LayoutManager2</code> backed by <code>LayoutEngine</code>, so any Swing container can be laid out with constraints as part of Swing's own invalidate and validate cycle.
+ * <p>
+ * Constraints are registered either with <code>addConstraint(_:)</code>, or as the constraints object passed to <code>Container.add(Component, Object)</code>, which may be a single <code>LayoutConstraint</code>, an array of them, or a collection of them.  Each validation of the container runs one pass over the cached layout plan in <code>layoutContainer(_:)</code>, and Swing coalesces repeated <code>revalidate()</code> calls into a single validation.
+ * <p>
+ * Subviews are laid out inside the insets of the container, so a constraint to its leading edge is measured from the inside of its border, and its width is the width inside the border.
+ * <p>
+ * The preferred size of the container is the smallest size that satisfies its constraints with every subview at its preferred size, and the minimum size is the same with every subview at its minimum size, plus the insets on all four sides.  Both are found by solving the constraints without moving any subview, so they do not depend on the current size of the container, and asking for them never lays it out.
+ * <pre>
+ * JPanel panel = new JPanel();
+ * AutoLayoutManager layout = new AutoLayoutManager(panel);
+ * panel.setLayout(layout);
+ * panel.add(label, new LayoutConstraint(label, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 8));
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public final class AutoLayoutManager implements LayoutManager2
+{
+	private final Container target;
+	private final ConstraintStore constraints;
+	private final LayoutCache layoutCache = new LayoutCache();
+	private final InsetAdapter adapter;
+	private final InsetAdapter minimumSizeAdapter;
+	//Solved for the preferred and the minimum size, and discarded along with layoutCache
+	private SimplexLayout preferredSizeLayout = null;
+	private SimplexLayout minimumSizeLayout = null;
+	private final int[] size = new int[2];
+
+	/**
+	 * @param target the container this manager will be set on.  A layout manager cannot be shared between containers.
+	 */
+	public AutoLayoutManager(Container target)
+	{
+		this.target = target;
+		this.constraints = new ConstraintStore(target, this::constraintValuesDidChange);
+		this.adapter = new InsetAdapter(target, false);
+		this.minimumSizeAdapter = new InsetAdapter(target, true);
+	}
+
+	public void addConstraint(LayoutConstraint constraint)
+	{
+		if (constraints.add(constraint))
+		{
+			constraintsDidChange();
+		}
+	}
+
+	public void removeConstraint(LayoutConstraint constraint)
+	{
+		if (constraints.remove(constraint))
+		{
+			constraintsDidChange();
+		}
+	}
+
+	public LayoutConstraint[] allConstraints()
+	{
+		return constraints.toArray();
+	}
+
+	private void constraintsDidChange()
+	{
+		invalidate();
+		revalidateTarget();
+	}
+
+	private void revalidateTarget()
+	{
+		if (target instanceof JComponent)
+		{
+			((JComponent) target).revalidate();
+		}
+		else
+		{
+			target.invalidate();
+		}
+	}
+
+	private void constraintValuesDidChange()
+	{
+		layoutCache.constraintValuesDidChange();
+		if (preferredSizeLayout != null)
+		{
+			preferredSizeLayout.constraintValuesDidChange();
+		}
+		if (minimumSizeLayout != null)
+		{
+			minimumSizeLayout.constraintValuesDidChange();
+		}
+		revalidateTarget();
+	}
+
+	@Override
+	public void addLayoutComponent(Component comp, Object constraints)
+	{
+		invalidate();
+		if (constraints instanceof LayoutConstraint)
+		{
+			addConstraint((LayoutConstraint) constraints);
+		}
+		else if (constraints instanceof LayoutConstraint[])
+		{
+			for (LayoutConstraint constraint : (LayoutConstraint[]) constraints)
+			{
+				addConstraint(constraint);
+			}
+		}
+		else if (constraints instanceof Collection)
+		{
+			for (Object constraint : (Collection<?>) constraints)
+			{
+				addConstraint((LayoutConstraint) constraint);
+			}
+		}
+		else if (constraints != null)
+		{
+			throw new IllegalArgumentException("AutoLayoutManager only accepts LayoutConstraints, but was given " + constraints.toString());
+		}
+	}
+
+	@Override
+	public void addLayoutComponent(String name, Component comp)
+	{
+		invalidate();
+	}
+
+	@Override
+	public void removeLayoutComponent(Component comp)
+	{
+		constraints.removeConstraintsReferencing(comp);
+		invalidate();
+	}
+
+	private void invalidate()
+	{
+		layoutCache.invalidate();
+		preferredSizeLayout = null;
+		minimumSizeLayout = null;
+	}
+
+	@Override
+	public void layoutContainer(Container parent)
+	{
+		checkTarget(parent);
+		if (adapter.readInsets())
+		{
+			//Every frame moves with the insets, including the frames of views the plan would not solve again
+			layoutCache.invalidate();
+		}
+		LayoutEngine.engineFor(parent).process(parent, layoutCache.isCompiled() ? null : constraints.toArray(), layoutCache, adapter);
+	}
+
+	@Override
+	public Dimension preferredLayoutSize(Container parent)
+	{
+		checkTarget(parent);
+		if (preferredSizeLayout == null)
+		{
+			preferredSizeLayout = SimplexLayout.fitting(parent, constraints.toArray(), adapter);
+		}
+		return fittingSize(preferredSizeLayout);
+	}
+
+	@Override
+	public Dimension minimumLayoutSize(Container parent)
+	{
+		checkTarget(parent);
+		if (minimumSizeLayout == null)
+		{
+			minimumSizeLayout = SimplexLayout.fitting(parent, constraints.toArray(), minimumSizeAdapter);
+		}
+		return fittingSize(minimumSizeLayout);
+	}
+
+	private Dimension fittingSize(SimplexLayout layout)
+	{
+		layout.fittingSize(target, size);
+		Insets insets = target.getInsets();
+		return new Dimension(size[0] + insets.left + insets.right, size[1] + insets.top + insets.bottom);
+	}
+
+	@Override
+	public Dimension maximumLayoutSize(Container target)
+	{
+		return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public float getLayoutAlignmentX(Container target)
+	{
+		return 0.5f;
+	}
+
+	@Override
+	public float getLayoutAlignmentY(Container target)
+	{
+		return 0.5f;
+	}
+
+	/**
+	 * Swing calls this on every <code>invalidate()</code>, which does not change the constraints.  The cached plan is kept, and changes to the size of the container are picked up by the next pass.
+	 */
+	@Override
+	public void invalidateLayout(Container target) { }
+
+	/**
+	 * Reads and writes the subviews of the container relative to the inside of its insets, and the container as the size inside them.
+	 */
+	private static final class InsetAdapter implements LayoutAdapter
+	{
+		private final Container target;
+		private final boolean readsMinimumSize;
+		private Insets insets = new Insets(0, 0, 0, 0);
+
+		InsetAdapter(Container target, boolean readsMinimumSize)
+		{
+			this.target = target;
+			this.readsMinimumSize = readsMinimumSize;
+		}
+
+		/**
+		 * Called before each pass, so a border set on the container after it was laid out is picked up.
+		 *
+		 * @return <code>true</code> if the insets changed since the last pass
+		 */
+		boolean readInsets()
+		{
+			Insets newInsets = target.getInsets();
+			boolean didChange = !newInsets.equals(insets);
+			insets = newInsets;
+			return didChange;
+		}
+
+		@Override
+		public int x(Object item)
+		{
+			return item == target ? 0 : ((Component) item).getX() - insets.left;
+		}
+
+		@Override
+		public int y(Object item)
+		{
+			return item == target ? 0 : ((Component) item).getY() - insets.top;
+		}
+
+		@Override
+		public int width(Object item)
+		{
+			return item == target ? target.getWidth() - insets.left - insets.right : ((Component) item).getWidth();
+		}
+
+		@Override
+		public int height(Object item)
+		{
+			return item == target ? target.getHeight() - insets.top - insets.bottom : ((Component) item).getHeight();
+		}
+
+		@Override
+		public void preferredSize(Object item, int[] size)
+		{
+			Dimension intrinsicSize = readsMinimumSize ? ((Component) item).getMinimumSize() : ((Component) item).getPreferredSize();
+			size[0] = intrinsicSize.width;
+			size[1] = intrinsicSize.height;
+		}
+
+		@Override
+		public boolean preferredSizeMayHaveChanged(Object item)
+		{
+			return !((Component) item).isValid();
+		}
+
+		@Override
+		public void setFrame(Object item, int x, int y, int width, int height)
+		{
+			((Component) item).setBounds(x + insets.left, y + insets.top, width, height);
+		}
+	}
+
+	private void checkTarget(Container parent)
+	{
+		if (parent != target)
+		{
+			throw new IllegalArgumentException("This AutoLayoutManager belongs to " + LayoutEngine.getClassAndHashCode(target) + " and cannot lay out " + LayoutEngine.getClassAndHashCode(parent));
+		}
+	}
+}
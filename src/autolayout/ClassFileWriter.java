@@ -0,0 +1,371 @@
+package autolayout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Writes the few class files <code>LayoutPlan</code> generates, without depending on a bytecode library.
+ * <p>
+ * Only what the generated classes use is supported: a constant pool of classes, methods, ints and doubles, and methods with a <code>Code</code> attribute and no exception handlers.  Classes are written as version 49, which is verified by type inference, so no stack map frames need to be computed for the branches.
+ */
+final class ClassFileWriter
+{
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_PRIVATE = 0x0002;
+	static final int ACC_STATIC = 0x0008;
+	static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int CLASS_FILE_VERSION = 49;
+	private static final int MAX_CONSTANT_POOL_COUNT = 65535;
+
+	private static final int TAG_UTF8 = 1;
+	private static final int TAG_INTEGER = 3;
+	private static final int TAG_DOUBLE = 6;
+	private static final int TAG_CLASS = 7;
+	private static final int TAG_METHODREF = 10;
+	private static final int TAG_NAME_AND_TYPE = 12;
+
+	private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+	private final DataOutputStream constants = new DataOutputStream(constantBytes);
+	private final HashMap<String, Integer> constantIndexes = new HashMap<>();
+	private int constantCount = 1;
+
+	private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+	private final DataOutputStream methods = new DataOutputStream(methodBytes);
+	private int methodCount = 0;
+
+	private final String name;
+	private final int thisClass;
+	private final int superClass;
+	private final int[] interfaces;
+	private final int code;
+
+	/**
+	 * @param name the internal name of the class, such as <code>autolayout/Example</code>
+	 */
+	ClassFileWriter(String name, String superName, String... interfaceNames)
+	{
+		this.name = name;
+		thisClass = classConstant(name);
+		superClass = classConstant(superName);
+		interfaces = new int[interfaceNames.length];
+		for (int index = 0; index < interfaceNames.length; index++)
+		{
+			interfaces[index] = classConstant(interfaceNames[index]);
+		}
+		code = utf8Constant("Code");
+	}
+
+	String name()
+	{
+		return name;
+	}
+
+	/**
+	 * Adds a method.  Every branch in <code>body</code> must be bound.
+	 */
+	void addMethod(int access, String methodName, String descriptor, Code body, int maxStack, int maxLocals)
+	{
+		try
+		{
+			methods.writeShort(access);
+			methods.writeShort(utf8Constant(methodName));
+			methods.writeShort(utf8Constant(descriptor));
+			methods.writeShort(1);
+			methods.writeShort(code);
+			methods.writeInt(12 + body.length);
+			methods.writeShort(maxStack);
+			methods.writeShort(maxLocals);
+			methods.writeInt(body.length);
+			methods.write(body.bytes, 0, body.length);
+			methods.writeShort(0);
+			methods.writeShort(0);
+			methodCount++;
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	byte[] toByteArray()
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(constantBytes.size() + methodBytes.size() + 64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(CLASS_FILE_VERSION);
+			out.writeShort(constantCount);
+			constantBytes.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(interfaces.length);
+			for (int index : interfaces)
+			{
+				out.writeShort(index);
+			}
+			out.writeShort(0);
+			out.writeShort(methodCount);
+			methodBytes.writeTo(out);
+			out.writeShort(0);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @throws IllegalStateException if the constant pool is full
+	 */
+	private int constant(String key, int size, int tag, Object value)
+	{
+		Integer index = constantIndexes.get(key);
+		if (index != null) { return index; }
+		if (constantCount + size > MAX_CONSTANT_POOL_COUNT)
+		{
+			throw new IllegalStateException("The constant pool of " + name + " is full");
+		}
+
+		try
+		{
+			constants.writeByte(tag);
+			switch (tag)
+			{
+				case TAG_UTF8:
+					constants.writeUTF((String) value);
+					break;
+
+				case TAG_INTEGER:
+					constants.writeInt((Integer) value);
+					break;
+
+				case TAG_DOUBLE:
+					constants.writeDouble((Double) value);
+					break;
+
+				default:
+				{
+					int[] indexes = (int[]) value;
+					for (int reference : indexes)
+					{
+						constants.writeShort(reference);
+					}
+					break;
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		index = constantCount;
+		constantCount += size;
+		constantIndexes.put(key, index);
+		return index;
+	}
+
+	private int utf8Constant(String value)
+	{
+		return constant("U" + value, 1, TAG_UTF8, value);
+	}
+
+	private int classConstant(String className)
+	{
+		return constant("C" + className, 1, TAG_CLASS, new int[] {utf8Constant(className)});
+	}
+
+	private int methodConstant(String owner, String methodName, String descriptor)
+	{
+		int nameAndType = constant("N" + methodName + " " + descriptor, 1, TAG_NAME_AND_TYPE, new int[] {utf8Constant(methodName), utf8Constant(descriptor)});
+		return constant("M" + owner + "." + methodName + " " + descriptor, 1, TAG_METHODREF, new int[] {classConstant(owner), nameAndType});
+	}
+
+	/**
+	 * The bytecode of one method, with helpers for the instructions the generated classes use.
+	 */
+	final class Code
+	{
+		static final int ICONST_0 = 0x03;
+		static final int IALOAD = 0x2e;
+		static final int DALOAD = 0x31;
+		static final int BALOAD = 0x33;
+		static final int IASTORE = 0x4f;
+		static final int BASTORE = 0x54;
+		static final int IADD = 0x60;
+		static final int ISUB = 0x64;
+		static final int IMUL = 0x68;
+		static final int DMUL = 0x6b;
+		static final int IDIV = 0x6c;
+		static final int I2D = 0x87;
+		static final int D2I = 0x8e;
+		static final int IFEQ = 0x99;
+		static final int IFLT = 0x9b;
+		static final int GOTO = 0xa7;
+		static final int RETURN = 0xb1;
+
+		private static final int BIPUSH = 0x10;
+		private static final int SIPUSH = 0x11;
+		private static final int LDC = 0x12;
+		private static final int LDC_W = 0x13;
+		private static final int LDC2_W = 0x14;
+		private static final int ILOAD = 0x15;
+		private static final int ALOAD = 0x19;
+		private static final int ILOAD_0 = 0x1a;
+		private static final int ALOAD_0 = 0x2a;
+		private static final int ISTORE = 0x36;
+		private static final int ISTORE_0 = 0x3b;
+		private static final int DCONST_0 = 0x0e;
+		private static final int INVOKESTATIC = 0xb8;
+		private static final int INVOKESPECIAL = 0xb7;
+
+		private byte[] bytes = new byte[1024];
+		private int length = 0;
+
+		int length()
+		{
+			return length;
+		}
+
+		void op(int opcode)
+		{
+			u1(opcode);
+		}
+
+		void pushInt(int value)
+		{
+			if (value >= -1 && value <= 5)
+			{
+				u1(ICONST_0 + value);
+			}
+			else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			{
+				u1(BIPUSH);
+				u1(value);
+			}
+			else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+			{
+				u1(SIPUSH);
+				u2(value);
+			}
+			else
+			{
+				int index = constant("I" + value, 1, TAG_INTEGER, value);
+				if (index <= 0xff)
+				{
+					u1(LDC);
+					u1(index);
+				}
+				else
+				{
+					u1(LDC_W);
+					u2(index);
+				}
+			}
+		}
+
+		void pushDouble(double value)
+		{
+			if (Double.doubleToRawLongBits(value) == 0L || value == 1.0)
+			{
+				u1(DCONST_0 + (int) value);
+				return;
+			}
+			u1(LDC2_W);
+			u2(constant("D" + Double.doubleToRawLongBits(value), 2, TAG_DOUBLE, value));
+		}
+
+		void iload(int local)
+		{
+			load(ILOAD, ILOAD_0, local);
+		}
+
+		void aload(int local)
+		{
+			load(ALOAD, ALOAD_0, local);
+		}
+
+		void istore(int local)
+		{
+			load(ISTORE, ISTORE_0, local);
+		}
+
+		private void load(int opcode, int shortOpcode, int local)
+		{
+			if (local <= 3)
+			{
+				u1(shortOpcode + local);
+			}
+			else
+			{
+				u1(opcode);
+				u1(local);
+			}
+		}
+
+		void invokestatic(String owner, String methodName, String descriptor)
+		{
+			u1(INVOKESTATIC);
+			u2(methodConstant(owner, methodName, descriptor));
+		}
+
+		void invokespecial(String owner, String methodName, String descriptor)
+		{
+			u1(INVOKESPECIAL);
+			u2(methodConstant(owner, methodName, descriptor));
+		}
+
+		/**
+		 * Emits a branch whose target is given later by <code>bind(_:)</code>.
+		 *
+		 * @return the branch, for <code>bind(_:)</code>
+		 */
+		int branch(int opcode)
+		{
+			int branch = length;
+			u1(opcode);
+			u2(0);
+			return branch;
+		}
+
+		/**
+		 * Makes <code>branch</code> jump to the next instruction emitted.
+		 *
+		 * @throws IllegalStateException if the jump is too long for a 16 bit offset
+		 */
+		void bind(int branch)
+		{
+			int offset = length - branch;
+			if (offset > Short.MAX_VALUE)
+			{
+				throw new IllegalStateException("A branch in " + name + " is too long");
+			}
+			bytes[branch + 1] = (byte) (offset >> 8);
+			bytes[branch + 2] = (byte) offset;
+		}
+
+		private void u1(int value)
+		{
+			if (length == bytes.length)
+			{
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		private void u2(int value)
+		{
+			u1(value >> 8);
+			u1(value);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package autolayout;
+
+/**
+ * The constraints of a <code>Constrainable</code>, compiled by a <code>LayoutEngine.SolverStrategy</code> into whatever form that strategy solves them in.
+ * <p>
+ * A compiled layout is executed in three phases.  <code>prepare(_:)</code> reads the items and the size of the parent, and <code>commit()</code> writes the solved frames back, both on the thread that owns the items.  <code>solve()</code> only works on state read by <code>prepare(_:)</code>, so the layouts of different views can be solved on different threads at the same time.
+ */
+interface CompiledLayout
+{
+	/**
+	 * Reads everything the layout depends on from the items it lays out.
+	 *
+	 * @return <code>true</code> if <code>solve()</code> needs to run before <code>commit()</code>, or <code>false</code> if a remembered result was picked up
+	 */
+	boolean prepare(Object parent);
+
+	/**
+	 * Called when the <code>constant</code> or <code>multiplier</code> of one of the constraints changed, so the next <code>prepare(_:)</code> reads them again.  Layouts only read them after this was called, so passes over unchanged constraints do not touch them.
+	 */
+	void constraintValuesDidChange();
+
+	/**
+	 * Called when the preferred size of an item may have changed without its <code>LayoutAdapter</code> reporting it, so the next <code>prepare(_:)</code> reads every preferred size again.
+	 */
+	void preferredSizesDidChange();
+
+	/**
+	 * Solves the state read by <code>prepare(_:)</code> without touching any item.  This may run on a pool thread, so constraints that cannot be satisfied are only recorded here, and reported by <code>commit()</code>.
+	 */
+	void solve();
+
+	/**
+	 * Applies the solved frames to the items.
+	 *
+	 * @param stats counts every frame set, or <code>null</code> if the pass is not being measured
+	 */
+	void commit(LayoutPassStats stats);
+
+	/**
+	 * @return the number of constraints in the layout, as a measure of how much work solving is
+	 */
+	int size();
+
+	/**
+	 * @return the largest trailing edge of any item after the last pass
+	 */
+	int calculatedWidth();
+
+	/**
+	 * @return the largest bottom edge of any item after the last pass
+	 */
+	int calculatedHeight();
+}
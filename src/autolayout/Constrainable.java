@@ -2,6 +2,8 @@ package autolayout;
 
 import autolayout.uiobjects.ALJPanel;
 
+import java.awt.*;
+
 /**
  * The interface used by LayoutEngine to define AutoLayout compatible views.
  * <br><br>
@@ -10,7 +12,7 @@ import autolayout.uiobjects.ALJPanel;
  * @implNote
  * <tab></tab>If you choose to implement this interface, please note:
  * <ul>
- *     <li>You must call LayoutEngine.processConstraintsIn(this); in layoutSubviews()</li>
+ *     <li>You must call layoutEngine().processConstraintsIn(this); in layoutSubviews()</li>
  * </ul>
  *
  * @see ALJPanel
@@ -40,4 +42,62 @@ public interface Constrainable
 	int calculatedHeight();
 
 	int calculatedWidth();
+
+	/**
+	 * The cache <code>LayoutEngine</code> uses to keep its work between layout passes.
+	 * <p>
+	 * Implementers must call <code>LayoutCache.invalidate()</code> whenever a constraint or a subview is added or removed, and <code>LayoutCache.constraintValuesDidChange()</code> followed by <code>setNeedsLayout()</code> whenever the <code>constant</code> or <code>multiplier</code> of a constraint changes.  A <code>ConstraintStore</code> reports the latter to the callback it is made with.  Returning <code>null</code> is allowed, in which case the engine starts from scratch on every pass.
+	 *
+	 * @return the same <code>LayoutCache</code> instance for the lifetime of this view, or <code>null</code>
+	 */
+	default LayoutCache layoutCache()
+	{
+		return null;
+	}
+
+	/**
+	 * @return the engine that lays out this view
+	 * @see LayoutEngine#engineFor(Component)
+	 */
+	default LayoutEngine layoutEngine()
+	{
+		return LayoutEngine.engineFor((Component) this);
+	}
+
+	/**
+	 * Marks this view as needing a layout pass, and every <code>Constrainable</code> above it as having a descendant that does.  The pass runs on the next <code>layoutIfNeeded()</code> of this view or one of its ancestors.
+	 * <p>
+	 * Views are laid out again automatically when their size or constraints change, including the <code>constant</code> or <code>multiplier</code> of a constraint.  Call this when something else changes the layout, such as the text of a label whose preferred size a constraint relies on.
+	 */
+	default void setNeedsLayout()
+	{
+		LayoutCache cache = layoutCache();
+		if (cache == null) { return; }
+
+		cache.setNeedsLayout();
+		for (Container parent = ((Component) this).getParent(); parent != null; parent = parent.getParent())
+		{
+			if (parent instanceof Constrainable && ((Constrainable) parent).layoutCache() != null)
+			{
+				((Constrainable) parent).layoutCache().setDescendantNeedsLayout();
+			}
+		}
+	}
+
+	/**
+	 * Calls <code>layoutSubviews()</code> if this view needs a layout pass, because it was marked with <code>setNeedsLayout()</code>, its constraints changed, or its size changed since its last pass.  Views without a <code>LayoutCache</code> are always laid out.
+	 */
+	default void layoutIfNeeded()
+	{
+		LayoutCache cache = layoutCache();
+		Component view = (Component) this;
+		if (cache == null || cache.needsLayout(view.getWidth(), view.getHeight()) || cache.descendantNeedsLayout())
+		{
+			if (cache != null)
+			{
+				cache.didLayoutDescendants();
+			}
+			layoutSubviews();
+		}
+	}
 }
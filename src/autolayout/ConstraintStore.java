@@ -0,0 +1,194 @@
+package autolayout;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * The constraints of a <code>Constrainable</code> or a <code>LayoutModel</code>, indexed by the views they reference.
+ * <p>
+ * Constraints are kept in the order they were added.  Every view maps to the constraints that reference it, either as <code>itemOne</code> or <code>itemTwo</code>, and to a bitmask of the attributes it already has a required equality for.  The index is maintained on every add and remove, so removing a view only touches the constraints that reference it.
+ * <p>
+ * Constraints that are illegal on their own, or that duplicate a required equality the view already has, are rejected when they are added instead of when the view is laid out.  Whether a constraint is a required equality is decided by its <code>priority</code> when it is added, and is not checked again if the priority changes afterwards.
+ * <p>
+ * A constraint belongs to at most one store at a time.  While it does, <code>setConstant(_:)</code> and <code>setMultiplier(_:)</code> on it run the store's <code>valuesDidChange</code>, so the owner can mark itself as needing a layout pass.
+ */
+public final class ConstraintStore
+{
+	private final Object owner;
+	private final Runnable valuesDidChange;
+	private final LinkedHashSet<LayoutConstraint> constraints = new LinkedHashSet<>();
+	private final Map<Object, ViewEntry> views = new IdentityHashMap<>();
+
+	/**
+	 * @param owner the view or node the constraints are laid out in
+	 * @param valuesDidChange run whenever the constant or the multiplier of a constraint in the store changes
+	 */
+	public ConstraintStore(Object owner, Runnable valuesDidChange)
+	{
+		this.owner = owner;
+		this.valuesDidChange = valuesDidChange;
+	}
+
+	private static boolean isRequiredEquality(LayoutConstraint constraint)
+	{
+		return constraint.relation == LayoutRelation.equal && constraint.priority >= 1000;
+	}
+
+	/**
+	 * Adds <code>constraint</code>, unless it is already in the store or cannot be satisfied.  A rejected constraint is reported and ignored, as is a constraint that is in another store.
+	 *
+	 * @return <code>true</code> if the constraint was added
+	 */
+	public boolean add(LayoutConstraint constraint)
+	{
+		if (constraint.store == this) { return false; }
+		if (constraint.store != null)
+		{
+			System.out.println("Cannot add constraint: " + constraint.toString() + " to " + LayoutEngine.getClassAndHashCode(owner) + ".  It was already added to " + LayoutEngine.getClassAndHashCode(constraint.store.owner) + ", so remove it from there first.");
+			return false;
+		}
+
+		String illegality = LayoutPlan.illegalityOf(constraint, owner);
+		if (illegality != null)
+		{
+			System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  " + illegality);
+			return false;
+		}
+
+		ViewEntry entry = entryFor(constraint.itemOne);
+		int attribute = 1 << constraint.attributeOne.ordinal();
+		if (isRequiredEquality(constraint))
+		{
+			if ((entry.requiredEqualities & attribute) != 0)
+			{
+				System.out.println("There are multiple constraints for ." + constraint.attributeOne.toString() + " for " + LayoutEngine.getClassAndHashCode(constraint.itemOne) + ".  AutoLayout will ignore " + constraint.toString() + ".  Please check your constraints and find the one you don't want and remove it.");
+				return false;
+			}
+			entry.requiredEqualities |= attribute;
+			entry.requiredEqualityFor[constraint.attributeOne.ordinal()] = constraint;
+		}
+
+		constraints.add(constraint);
+		constraint.store = this;
+		entry.constraints.add(constraint);
+		if (constraint.itemTwo != null && constraint.itemTwo != owner && constraint.itemTwo != constraint.itemOne)
+		{
+			entryFor(constraint.itemTwo).constraints.add(constraint);
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if the constraint was in the store
+	 */
+	public boolean remove(LayoutConstraint constraint)
+	{
+		if (!constraints.remove(constraint)) { return false; }
+		constraint.store = null;
+
+		ViewEntry entry = views.get(constraint.itemOne);
+		entry.constraints.remove(constraint);
+		//The priority may have been changed since the constraint was added, so the constraint that set the bit is compared instead
+		if (entry.requiredEqualityFor[constraint.attributeOne.ordinal()] == constraint)
+		{
+			entry.requiredEqualityFor[constraint.attributeOne.ordinal()] = null;
+			entry.requiredEqualities &= ~(1 << constraint.attributeOne.ordinal());
+		}
+		removeEntryIfEmpty(constraint.itemOne, entry);
+
+		if (constraint.itemTwo != null && constraint.itemTwo != owner && constraint.itemTwo != constraint.itemOne)
+		{
+			ViewEntry other = views.get(constraint.itemTwo);
+			other.constraints.remove(constraint);
+			removeEntryIfEmpty(constraint.itemTwo, other);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every constraint that positions <code>view</code>.  Constraints of other views that are relative to <code>view</code> are kept.
+	 *
+	 * @return <code>true</code> if any constraint was removed
+	 */
+	public boolean removeConstraintsFor(Object view)
+	{
+		ViewEntry entry = views.get(view);
+		if (entry == null) { return false; }
+
+		boolean hasRemoved = false;
+		for (LayoutConstraint constraint : entry.constraints.toArray(new LayoutConstraint[0]))
+		{
+			if (constraint.itemOne == view)
+			{
+				hasRemoved |= remove(constraint);
+			}
+		}
+		return hasRemoved;
+	}
+
+	/**
+	 * Removes every constraint that references <code>view</code>, as either its first or second item.
+	 *
+	 * @return <code>true</code> if any constraint was removed
+	 */
+	public boolean removeConstraintsReferencing(Object view)
+	{
+		ViewEntry entry = views.get(view);
+		if (entry == null) { return false; }
+
+		for (LayoutConstraint constraint : entry.constraints.toArray(new LayoutConstraint[0]))
+		{
+			remove(constraint);
+		}
+		return true;
+	}
+
+	public void clear()
+	{
+		for (LayoutConstraint constraint : constraints)
+		{
+			constraint.store = null;
+		}
+		constraints.clear();
+		views.clear();
+	}
+
+	public int size()
+	{
+		return constraints.size();
+	}
+
+	/**
+	 * @return a new array holding every constraint, in the order they were added
+	 */
+	public LayoutConstraint[] toArray()
+	{
+		return constraints.toArray(new LayoutConstraint[0]);
+	}
+
+	void constraintValueDidChange()
+	{
+		valuesDidChange.run();
+	}
+
+	private ViewEntry entryFor(Object view)
+	{
+		return views.computeIfAbsent(view, key -> new ViewEntry());
+	}
+
+	private void removeEntryIfEmpty(Object view, ViewEntry entry)
+	{
+		if (entry.constraints.isEmpty())
+		{
+			views.remove(view);
+		}
+	}
+
+	private static final class ViewEntry
+	{
+		final LinkedHashSet<LayoutConstraint> constraints = new LinkedHashSet<>();
+		final LayoutConstraint[] requiredEqualityFor = new LayoutConstraint[LayoutAttribute.values().length];
+		int requiredEqualities = 0;
+	}
+}
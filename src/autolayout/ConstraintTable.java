@@ -0,0 +1,88 @@
+package autolayout;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A set of constraints stored column by column in primitive arrays, for the engine to solve without dereferencing <code>LayoutConstraint</code> objects.
+ * <p>
+ * Views are identified by integer ids, assigned in the order they first appear as <code>itemOne</code>.  An <code>itemTwo</code> that is the parent is stored as <code>PARENT</code>, and a missing one as <code>NONE</code>.  Attributes and relations are stored by ordinal.
+ * <p>
+ * The <code>LayoutConstraint</code> each row was built from is kept as a handle, for reporting and for picking up changes to <code>constant</code> and <code>multiplier</code> with <code>refresh(int)</code>.  Rows are only refreshed after a constraint reported such a change, so passes over unchanged constraints never dereference the handles.
+ */
+final class ConstraintTable
+{
+	static final int PARENT = -1;
+	static final int NONE = -2;
+
+	final int size;
+	final Object[] views;
+	final LayoutConstraint[] handles;
+
+	final int[] viewOne;
+	final int[] viewTwo;
+	final byte[] attributeOne;
+	final byte[] attributeTwo;
+	final byte[] relation;
+	final double[] multiplier;
+	final int[] constant;
+
+	ConstraintTable(Object parent, LayoutConstraint[] constraints)
+	{
+		size = constraints.length;
+		handles = constraints;
+		viewOne = new int[size];
+		viewTwo = new int[size];
+		attributeOne = new byte[size];
+		attributeTwo = new byte[size];
+		relation = new byte[size];
+		multiplier = new double[size];
+		constant = new int[size];
+
+		Map<Object, Integer> ids = new IdentityHashMap<>();
+		int viewCount = 0;
+		for (int row = 0; row < size; row++)
+		{
+			Integer id = ids.get(constraints[row].itemOne);
+			if (id == null)
+			{
+				id = viewCount++;
+				ids.put(constraints[row].itemOne, id);
+			}
+			viewOne[row] = id;
+		}
+
+		views = new Object[viewCount];
+		for (Map.Entry<Object, Integer> entry : ids.entrySet())
+		{
+			views[entry.getValue()] = entry.getKey();
+		}
+
+		for (int row = 0; row < size; row++)
+		{
+			LayoutConstraint constraint = constraints[row];
+			Integer viewTwoId = ids.get(constraint.itemTwo);
+			viewTwo[row] = constraint.itemTwo == null ? NONE : constraint.itemTwo == parent ? PARENT : viewTwoId == null ? NONE : viewTwoId;
+			attributeOne[row] = (byte) constraint.attributeOne.ordinal();
+			attributeTwo[row] = (byte) constraint.attributeTwo.ordinal();
+			relation[row] = (byte) constraint.relation.ordinal();
+			multiplier[row] = constraint.multiplier();
+			constant[row] = constraint.constant();
+		}
+	}
+
+	/**
+	 * Copies the <code>constant</code> and <code>multiplier</code> of a row's handle into the table.
+	 *
+	 * @return <code>true</code> if either of them changed
+	 */
+	boolean refresh(int row)
+	{
+		LayoutConstraint handle = handles[row];
+		if (handle.constant() == constant[row] && handle.multiplier() == multiplier[row]) { return false; }
+
+		constant[row] = handle.constant();
+		multiplier[row] = handle.multiplier();
+		return true;
+	}
+}
@@ -0,0 +1,380 @@
+package autolayout;
+
+/**
+ * The views of a <code>Constrainable</code>, connected by the constraints between them.
+ * <p>
+ * A view depends on every <code>viewTwo</code> its constraints reference.  The graph orders views topologically, so every view is laid out after the views it depends on and a single pass always reads up to date frames.  Constraints that form a cycle are reported when the graph is built, and the views in the cycle are laid out last, in the order their constraints were added.
+ * <p>
+ * Before each layout pass, <code>LayoutEngine</code> asks the graph which views are dirty: views whose constraints changed, views constrained to a dimension of the parent that changed, and views whose preferred size they rely on changed.  Preferred sizes are only read for views whose <code>LayoutAdapter</code> reports that they may have changed.  Every view that transitively depends on a dirty view is dirty as well.  All other views keep the frame they already have.
+ */
+final class DependencyGraph
+{
+	private final ConstraintTable table;
+	private final LayoutAdapter adapter;
+	private final Object[] views;
+	private final int[] order;
+	private final int[][] dependents;
+	private final int[][] dependentConstraints;
+	private final boolean[] dependsOnParentWidth;
+	private final boolean[] dependsOnParentHeight;
+	private final boolean[] usesPreferredWidth;
+	private final boolean[] usesPreferredHeight;
+	private final boolean[] dirty;
+	private final int[] stack;
+
+	private final int[] preferredWidths;
+	private final int[] preferredHeights;
+	private final int[] preferredSize = new int[2];
+	private int parentWidth = -1;
+	private int parentHeight = -1;
+	private boolean hasProcessed = false;
+	private boolean inputsChanged = false;
+	private boolean constraintValuesChanged = false;
+	private boolean preferredSizesChanged = false;
+
+	DependencyGraph(ConstraintTable table, LayoutAdapter adapter)
+	{
+		this.table = table;
+		this.adapter = adapter;
+		views = table.views;
+		dependsOnParentWidth = new boolean[views.length];
+		dependsOnParentHeight = new boolean[views.length];
+		usesPreferredWidth = new boolean[views.length];
+		usesPreferredHeight = new boolean[views.length];
+		dirty = new boolean[views.length];
+		stack = new int[views.length];
+		preferredWidths = new int[views.length];
+		preferredHeights = new int[views.length];
+
+		int[] dependentCounts = new int[views.length];
+		int[] attributes = new int[views.length];
+		int[] inequalities = new int[views.length];
+		for (int row = 0; row < table.size; row++)
+		{
+			int viewIndex = table.viewOne[row];
+			attributes[viewIndex] |= 1 << table.attributeOne[row];
+			if (table.relation[row] != LayoutRelation.equal.ordinal())
+			{
+				inequalities[viewIndex] |= 1 << table.attributeOne[row];
+			}
+
+			if (table.viewTwo[row] == ConstraintTable.PARENT)
+			{
+				switch (LayoutAttribute.values()[table.attributeTwo[row]])
+				{
+					case trailing:
+					case centerX:
+					case width:
+						dependsOnParentWidth[viewIndex] = true;
+						break;
+
+					case bottom:
+					case centerY:
+					case height:
+						dependsOnParentHeight[viewIndex] = true;
+						break;
+
+					default:
+						break;
+				}
+			}
+			else if (table.viewTwo[row] >= 0 && table.viewTwo[row] != viewIndex)
+			{
+				dependentCounts[table.viewTwo[row]]++;
+			}
+		}
+
+		dependents = new int[views.length][];
+		dependentConstraints = new int[views.length][];
+		for (int viewIndex = 0; viewIndex < views.length; viewIndex++)
+		{
+			dependents[viewIndex] = new int[dependentCounts[viewIndex]];
+			dependentConstraints[viewIndex] = new int[dependentCounts[viewIndex]];
+			dependentCounts[viewIndex] = 0;
+
+			//Mirrors how LayoutPlan falls back to the preferred size
+			int width = 1 << LayoutAttribute.width.ordinal();
+			int height = 1 << LayoutAttribute.height.ordinal();
+			int horizontalPair = (1 << LayoutAttribute.leading.ordinal()) | (1 << LayoutAttribute.trailing.ordinal());
+			int verticalPair = (1 << LayoutAttribute.top.ordinal()) | (1 << LayoutAttribute.bottom.ordinal());
+			usesPreferredWidth[viewIndex] = ((attributes[viewIndex] & width) == 0 && (attributes[viewIndex] & horizontalPair) != horizontalPair) || (inequalities[viewIndex] & width) != 0;
+			usesPreferredHeight[viewIndex] = ((attributes[viewIndex] & height) == 0 && (attributes[viewIndex] & verticalPair) != verticalPair) || (inequalities[viewIndex] & height) != 0;
+		}
+
+		for (int row = 0; row < table.size; row++)
+		{
+			int viewIndex = table.viewOne[row];
+			int viewTwoIndex = table.viewTwo[row];
+			if (viewTwoIndex >= 0 && viewTwoIndex != viewIndex)
+			{
+				dependentConstraints[viewTwoIndex][dependentCounts[viewTwoIndex]] = row;
+				dependents[viewTwoIndex][dependentCounts[viewTwoIndex]++] = viewIndex;
+			}
+		}
+
+		order = sortTopologically();
+	}
+
+	/**
+	 * Kahn's algorithm.  Views that are ready at the same time keep the order their constraints were added in.
+	 */
+	private int[] sortTopologically()
+	{
+		int[] unresolved = new int[views.length];
+		for (int[] viewDependents : dependents)
+		{
+			for (int dependent : viewDependents)
+			{
+				unresolved[dependent]++;
+			}
+		}
+
+		int[] queue = new int[views.length];
+		int head = 0;
+		int tail = 0;
+		for (int viewIndex = 0; viewIndex < views.length; viewIndex++)
+		{
+			if (unresolved[viewIndex] == 0)
+			{
+				queue[tail++] = viewIndex;
+			}
+		}
+
+		int[] ordered = new int[views.length];
+		int count = 0;
+		while (head < tail)
+		{
+			int viewIndex = queue[head++];
+			ordered[count++] = viewIndex;
+			for (int dependent : dependents[viewIndex])
+			{
+				if (--unresolved[dependent] == 0)
+				{
+					queue[tail++] = dependent;
+				}
+			}
+		}
+
+		if (count < views.length)
+		{
+			reportCycle(unresolved);
+			for (int viewIndex = 0; viewIndex < views.length; viewIndex++)
+			{
+				if (unresolved[viewIndex] > 0)
+				{
+					ordered[count++] = viewIndex;
+				}
+			}
+		}
+		return ordered;
+	}
+
+	/**
+	 * Every view left with unresolved dependencies after sorting depends on another such view, so following those dependencies from any of them must arrive back at a view already visited.
+	 */
+	private void reportCycle(int[] unresolved)
+	{
+		int[] dependencyOf = new int[views.length];
+		int[] constraintOf = new int[views.length];
+		for (int viewIndex = 0; viewIndex < views.length; viewIndex++)
+		{
+			for (int edge = 0; edge < dependents[viewIndex].length; edge++)
+			{
+				if (unresolved[viewIndex] > 0 && unresolved[dependents[viewIndex][edge]] > 0)
+				{
+					dependencyOf[dependents[viewIndex][edge]] = viewIndex;
+					constraintOf[dependents[viewIndex][edge]] = dependentConstraints[viewIndex][edge];
+				}
+			}
+		}
+
+		int start = 0;
+		while (unresolved[start] == 0)
+		{
+			start++;
+		}
+
+		int[] visitedAt = new int[views.length];
+		int step = 1;
+		int viewIndex = start;
+		while (visitedAt[viewIndex] == 0)
+		{
+			visitedAt[viewIndex] = step++;
+			viewIndex = dependencyOf[viewIndex];
+		}
+
+		StringBuilder chain = new StringBuilder();
+		int cycleStart = viewIndex;
+		do
+		{
+			chain.append("\n\t").append(table.handles[constraintOf[viewIndex]].toString());
+			viewIndex = dependencyOf[viewIndex];
+		}
+		while (viewIndex != cycleStart);
+
+		System.out.println("The constraints for " + LayoutEngine.getClassAndHashCode(views[cycleStart]) + " form a cycle.  AutoLayout cannot determine which view to position first, and the views in the cycle may be positioned incorrectly.  Please break one of these constraints:" + chain.toString());
+	}
+
+	Object[] views()
+	{
+		return views;
+	}
+
+	/**
+	 * @return the index of every view, ordered so that each view comes after all of the views it depends on
+	 */
+	int[] order()
+	{
+		return order;
+	}
+
+	/**
+	 * Makes the next call to <code>markDirtyViews</code> copy the <code>constant</code> and <code>multiplier</code> of every constraint into the table, and mark the views whose constraints changed.  Until then the handles are not read.
+	 */
+	void constraintValuesDidChange()
+	{
+		constraintValuesChanged = true;
+	}
+
+	/**
+	 * Makes the next call to <code>markDirtyViews</code> read the preferred size of every view that relies on it, instead of only the views whose adapter reports that it may have changed.
+	 */
+	void preferredSizesDidChange()
+	{
+		preferredSizesChanged = true;
+	}
+
+	/**
+	 * Determines which views need to be laid out in this pass, and remembers the state they were computed from for the next pass.
+	 *
+	 * @return the number of dirty views
+	 */
+	int markDirtyViews(int parentWidth, int parentHeight)
+	{
+		boolean widthChanged = parentWidth != this.parentWidth;
+		boolean heightChanged = parentHeight != this.parentHeight;
+		this.parentWidth = parentWidth;
+		this.parentHeight = parentHeight;
+		inputsChanged = !hasProcessed;
+		boolean readsEveryPreferredSize = !hasProcessed || preferredSizesChanged;
+		preferredSizesChanged = false;
+
+		for (int viewIndex = 0; viewIndex < views.length; viewIndex++)
+		{
+			boolean isDirty = !hasProcessed || (widthChanged && dependsOnParentWidth[viewIndex]) || (heightChanged && dependsOnParentHeight[viewIndex]);
+
+			if ((usesPreferredWidth[viewIndex] || usesPreferredHeight[viewIndex]) && (readsEveryPreferredSize || adapter.preferredSizeMayHaveChanged(views[viewIndex])))
+			{
+				adapter.preferredSize(views[viewIndex], preferredSize);
+				if (usesPreferredWidth[viewIndex] && preferredSize[0] != preferredWidths[viewIndex])
+				{
+					preferredWidths[viewIndex] = preferredSize[0];
+					isDirty = true;
+					inputsChanged = true;
+				}
+				if (usesPreferredHeight[viewIndex] && preferredSize[1] != preferredHeights[viewIndex])
+				{
+					preferredHeights[viewIndex] = preferredSize[1];
+					isDirty = true;
+					inputsChanged = true;
+				}
+			}
+			dirty[viewIndex] = isDirty;
+		}
+
+		if (constraintValuesChanged)
+		{
+			constraintValuesChanged = false;
+			for (int row = 0; row < table.size; row++)
+			{
+				if (table.refresh(row))
+				{
+					dirty[table.viewOne[row]] = true;
+					inputsChanged = true;
+				}
+			}
+		}
+		hasProcessed = true;
+
+		//Propagate to every transitive dependent
+		int stackSize = 0;
+		for (int viewIndex = 0; viewIndex < views.length; viewIndex++)
+		{
+			if (dirty[viewIndex])
+			{
+				stack[stackSize++] = viewIndex;
+			}
+		}
+
+		int count = stackSize;
+		while (stackSize > 0)
+		{
+			int viewIndex = stack[--stackSize];
+			for (int dependent : dependents[viewIndex])
+			{
+				if (!dirty[dependent])
+				{
+					dirty[dependent] = true;
+					stack[stackSize++] = dependent;
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return <code>true</code> if the last call to <code>markDirtyViews</code> found a change other than the size of the parent, such as a new <code>constant</code> or preferred size, so layouts remembered from earlier passes no longer apply
+	 */
+	boolean inputsChanged()
+	{
+		return inputsChanged;
+	}
+
+	boolean isDirty(int viewIndex)
+	{
+		return dirty[viewIndex];
+	}
+
+	/**
+	 * @return whether each view is dirty, indexed by slot, which the caller must not change
+	 */
+	boolean[] dirtyViews()
+	{
+		return dirty;
+	}
+
+	/**
+	 * The preferred width read by the last call to <code>markDirtyViews</code>.  Only valid for views that rely on their preferred width, so the layout pass does not need to ask the view again.
+	 */
+	int preferredWidth(int viewIndex)
+	{
+		return preferredWidths[viewIndex];
+	}
+
+	/**
+	 * @see #preferredWidth(int)
+	 */
+	int preferredHeight(int viewIndex)
+	{
+		return preferredHeights[viewIndex];
+	}
+
+	/**
+	 * @return every preferred width, indexed by slot, which the caller must not change
+	 * @see #preferredWidth(int)
+	 */
+	int[] preferredWidths()
+	{
+		return preferredWidths;
+	}
+
+	/**
+	 * @return every preferred height, indexed by slot, which the caller must not change
+	 * @see #preferredWidth(int)
+	 */
+	int[] preferredHeights()
+	{
+		return preferredHeights;
+	}
+}
@@ -0,0 +1,31 @@
+package autolayout;
+
+/**
+ * How the engine reads and writes the items it lays out.  Compiled layouts only see their items through an adapter, so the same plans and solver lay out Swing components and <code>LayoutNode</code>s alike.
+ * <p>
+ * Items are read while a layout is prepared and written while it is committed, never while it is solved.
+ */
+interface LayoutAdapter
+{
+	int x(Object item);
+
+	int y(Object item);
+
+	int width(Object item);
+
+	int height(Object item);
+
+	/**
+	 * Reads the preferred width and height of <code>item</code> into <code>size[0]</code> and <code>size[1]</code>.
+	 */
+	void preferredSize(Object item, int[] size);
+
+	/**
+	 * Lets compiled layouts skip reading preferred sizes that cannot have changed.  Every preferred size is read on the first pass, and again after <code>LayoutCache.setNeedsLayout()</code>.
+	 *
+	 * @return <code>false</code> if nothing the preferred size of <code>item</code> depends on has changed since the last pass that read it
+	 */
+	boolean preferredSizeMayHaveChanged(Object item);
+
+	void setFrame(Object item, int x, int y, int width, int height);
+}
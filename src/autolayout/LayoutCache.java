@@ -0,0 +1,105 @@
+package autolayout;
+
+/**
+ * Holds the state <code>LayoutEngine</code> keeps for a <code>Constrainable</code> between layout passes.
+ * <p>
+ * The contents of the cache are managed by <code>LayoutEngine</code>.  A <code>Constrainable</code> only needs to create one instance, return it from <code>layoutCache()</code>, call <code>invalidate()</code> whenever a constraint or a subview is added or removed, and call <code>constraintValuesDidChange()</code> whenever the <code>constant</code> or <code>multiplier</code> of one of its constraints changes.  Keeping the constraints in a <code>ConstraintStore</code> reports those changes to a callback.  The <code>priority</code> of a constraint is frozen once it is added.
+ *
+ * @see Constrainable#layoutCache()
+ */
+public final class LayoutCache
+{
+	CompiledLayout layout;
+
+	private boolean needsLayout = true;
+	private boolean descendantNeedsLayout = false;
+	private int width = -1;
+	private int height = -1;
+	int calculatedWidth = 0;
+	int calculatedHeight = 0;
+
+	boolean isCompiled()
+	{
+		return layout != null;
+	}
+
+	/**
+	 * Discards everything the engine has cached.  The next layout pass will rebuild it from <code>allConstraints()</code>.
+	 */
+	public void invalidate()
+	{
+		layout = null;
+		needsLayout = true;
+	}
+
+	/**
+	 * Marks the view as needing a layout pass that picks up the new <code>constant</code> or <code>multiplier</code> of a constraint, without discarding what the engine has cached.  Views above this one are not marked, which <code>Constrainable.setNeedsLayout()</code> does.
+	 */
+	public void constraintValuesDidChange()
+	{
+		needsLayout = true;
+		if (layout != null)
+		{
+			layout.constraintValuesDidChange();
+		}
+	}
+
+	/**
+	 * Marks the view as needing a layout pass, even if its size has not changed.  The pass reads the preferred size of every subview again.
+	 */
+	public void setNeedsLayout()
+	{
+		needsLayout = true;
+		preferredSizesMayHaveChanged();
+	}
+
+	/**
+	 * Makes the next layout pass read the preferred size of every subview again, without marking the view as needing one.  Passes otherwise only read the preferred sizes of subviews that are not valid.
+	 */
+	public void preferredSizesMayHaveChanged()
+	{
+		if (layout != null)
+		{
+			layout.preferredSizesDidChange();
+		}
+	}
+
+	/**
+	 * Marks that a view somewhere below this one needs a layout pass, while this view itself does not.
+	 */
+	public void setDescendantNeedsLayout()
+	{
+		descendantNeedsLayout = true;
+	}
+
+	/**
+	 * @return <code>true</code> if the view was marked as needing a layout pass, or if its size is not the one it was last laid out at
+	 */
+	public boolean needsLayout(int width, int height)
+	{
+		return needsLayout || width != this.width || height != this.height;
+	}
+
+	public boolean descendantNeedsLayout()
+	{
+		return descendantNeedsLayout;
+	}
+
+	/**
+	 * Clears <code>descendantNeedsLayout()</code>.  Called once the descendants have been asked to lay out if needed.
+	 */
+	public void didLayoutDescendants()
+	{
+		descendantNeedsLayout = false;
+	}
+
+	/**
+	 * Records that the engine laid the view out at the given size.
+	 */
+	void didLayout(int width, int height)
+	{
+		needsLayout = false;
+		this.width = width;
+		this.height = height;
+	}
+}
@@ -29,6 +29,8 @@ import java.awt.*;
  * <p>
  * A valid layout is defined as a set constraints with one and only one possible solution. Valid layouts are also referred to as a nonambiguous, nonconflicting layouts. Constraints with more than one solution are ambiguous. Constraints with no valid solutions are conflicting.
  * <p>
+ * Constraints relate either two Swing views, or two <code>LayoutNode</code>s of a <code>LayoutModel</code>.  <code>itemOne</code> and <code>itemTwo</code> hold the items in either case, while <code>viewOne</code> and <code>viewTwo</code> are only set for views.
+ * <p>
  * Additionally, constraints are not limited to equality relationships. They can also use greater than or equal to (>=) or less than or equal to (<=) to describe the relationship between the two attributes.
  * <p>
  * This combination of inequalities and equalities gives you a great amount of flexibility and power. By combining multiple constraints, you can define layouts that dynamically adapt as the size and location of the elements in your user interface change.
@@ -39,21 +41,43 @@ public class LayoutConstraint
 	public final Component viewOne;
 	public final Component viewTwo;
 
+	public final Object itemOne;
+	public final Object itemTwo;
+
 	public final LayoutAttribute attributeOne;
 	public final LayoutAttribute attributeTwo;
 
 	public final LayoutRelation relation;
-	public double multiplier;
-	public int constant;
+	private double multiplier;
+	private int constant;
 
-	public int priority = 1000;
+	//The store this constraint was added to, which is told when the multiplier or the constant changes
+	ConstraintStore store;
 
-	boolean hasBeenProcessed = false;
+	/**
+	 * Constraints with a priority lower than 1000 are optional.  The priority is read when the constraint is added, both to check it against the constraints already there and to pick how the view is solved, so it is frozen from then on.  To change it, remove the constraint, set the priority and add it again.
+	 */
+	public int priority = 1000;
 
 	public LayoutConstraint(Component view1, LayoutAttribute attr1, LayoutRelation relation, Component view2, LayoutAttribute attr2, double multiplier, int constant)
 	{
 		this.viewOne = view1;
 		this.viewTwo = view2;
+		this.itemOne = view1;
+		this.itemTwo = view2;
+		this.relation = relation;
+		this.attributeOne = attr1;
+		this.attributeTwo = attr2;
+		this.multiplier = multiplier;
+		this.constant = constant;
+	}
+
+	public LayoutConstraint(LayoutNode node1, LayoutAttribute attr1, LayoutRelation relation, LayoutNode node2, LayoutAttribute attr2, double multiplier, int constant)
+	{
+		this.viewOne = null;
+		this.viewTwo = null;
+		this.itemOne = node1;
+		this.itemTwo = node2;
 		this.relation = relation;
 		this.attributeOne = attr1;
 		this.attributeTwo = attr2;
@@ -61,9 +85,47 @@ public class LayoutConstraint
 		this.constant = constant;
 	}
 
+	public double multiplier()
+	{
+		return multiplier;
+	}
+
+	/**
+	 * Changes the multiplier.  The view the constraint was added to is marked as needing a layout pass, so the change is picked up by its next <code>layoutIfNeeded()</code>.
+	 */
+	public void setMultiplier(double multiplier)
+	{
+		if (multiplier == this.multiplier) { return; }
+
+		this.multiplier = multiplier;
+		if (store != null)
+		{
+			store.constraintValueDidChange();
+		}
+	}
+
+	public int constant()
+	{
+		return constant;
+	}
+
+	/**
+	 * Changes the constant.  The view the constraint was added to is marked as needing a layout pass, so the change is picked up by its next <code>layoutIfNeeded()</code>.
+	 */
+	public void setConstant(int constant)
+	{
+		if (constant == this.constant) { return; }
+
+		this.constant = constant;
+		if (store != null)
+		{
+			store.constraintValueDidChange();
+		}
+	}
+
 	@Override
 	public String toString()
 	{
-		return LayoutEngine.getClassAndHashCode(viewOne) + "." + attributeOne.toString() + relation.toString() + (viewTwo != null ? LayoutEngine.getClassAndHashCode(viewTwo) : "null") + "." + attributeTwo.toString() + " * " + multiplier + " + " + constant;
+		return LayoutEngine.getClassAndHashCode(itemOne) + "." + attributeOne.toString() + relation.toString() + (itemTwo != null ? LayoutEngine.getClassAndHashCode(itemTwo) : "null") + "." + attributeTwo.toString() + " * " + multiplier + " + " + constant;
 	}
 }
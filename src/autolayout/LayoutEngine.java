@@ -1,10 +1,17 @@
 package autolayout;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 import static java.lang.Integer.max;
@@ -16,1185 +23,642 @@ import static java.lang.Integer.max;
  * <p>
  * <u>This engine is currently in <b>beta</b>.</u>
  * <p>
- * The engine processes all constraints in order they were inserted into the view.  Currently, the engine places an equal priority on all constraints, and will warn if the constraints produce an illegal layout.
+ * Currently, the engine places an equal priority on all constraints, and will warn if the constraints produce an illegal layout.
  * <p>
  * The engine respects grater than or equal(>=) and less than or equal(<=) constraint relations.
  * <p>
- * When processing constraints, <code>LayoutEngine</code> will process constraints in order or relation to other views.  Views with constraints that do not have reliance on other views will be processed first, then the rest of the layout will be built.
+ * When processing constraints, <code>LayoutEngine</code> will process views in topological order of their relation to other views.  Views with constraints that do not have reliance on other views will be processed first, and every other view is processed after all of the views it relies on, so a single pass produces the final layout.  Constraints that depend on each other in a cycle are reported.
  * <p>
- * The engine processes all constraints on relayout, as it does not yet know how the view was changed.
+ * The constraints of a view are compiled into a <code>LayoutPlan</code> once, and the plan is kept in the view's <code>LayoutCache</code> until the constraints change.  A plan has every constraint validated and ordered ahead of time, so a resize only executes it.
  * <p>
- * <code>LayoutEngine</code> will attempt to warn if illegal constraints are found, or if a view is not positionable.  In some cases, layouts will cause a system crash, mostly due to multiple of the same attribute or if the view attempting to be positioned is not a JComponent.
+ * On relayout, the engine only processes the constraints of views affected by what changed: a view is recomputed when its own constraints change, when it is constrained to a dimension of the parent that changed, when the preferred size it relies on changes, or when a view it depends on is recomputed.  All other views keep their frames.
+ * <p>
+ * How the constraints of a view are solved is up to a <code>SolverStrategy</code>, picked automatically by the shape of the constraints when they are compiled.  Constraint sets the greedy engine cannot handle, such as inequalities on location attributes or constraints with a priority lower than 1000, are solved by an incremental simplex solver instead.  The solver's tableau is kept in the view's <code>LayoutCache</code>, so a resize only re-optimizes the parent's width and height.
+ * <p>
+ * The engine reads and writes views through an adapter, so a <code>LayoutModel</code> of <code>LayoutNode</code>s is laid out by the same plans and solver as Swing views, without any Swing components.
+ * <p>
+ * Views whose constraints are independent of each other, such as sibling panels, can be laid out together with <code>processConstraintsIn(List)</code>.  Their constraints are read and their frames applied on the event dispatch thread, but when the batch is large enough and there is more than one core, the systems themselves are solved concurrently on a <code>ForkJoinPool</code>.
+ * <p>
+ * Every window can have an engine of its own, with its own settings.  An engine set on a component with <code>setLayoutEngine(_:_:)</code> lays out every <code>Constrainable</code> below it, and views without one are laid out by <code>current</code>.  An engine is confined to the thread that lays out its views, which for Swing views is the event dispatch thread, so engines of different windows never need to coordinate.
+ * <p>
+ * What each pass costs can be followed with a <code>LayoutStatsListener</code>, or published over JMX with <code>registerMXBean(_:)</code>.  An engine nobody listens to does not measure its passes.
+ * <p>
+ * <code>LayoutEngine</code> will warn if illegal constraints are found, or if a view is not positionable.  Illegal constraints, including multiple constraints for the same attribute, are reported once when the constraints are compiled and then ignored.  Layout will cause a system crash if the view attempting to be positioned is not a JComponent.
  */
-@SuppressWarnings("ConstantConditions")
 public class LayoutEngine
 {
-	public static final LayoutEngine current = new LayoutEngine();
+	private static final Object engineKey = new Object();
 
-	private LayoutEngine() { }
+	/**
+	 * The number of constraints a batch needs to have before it is solved in parallel.  Below this, handing the work to other threads costs more than it saves, and the views are laid out one after another.
+	 */
+	public static final int PARALLEL_SOLVE_THRESHOLD = 2_000;
 
-	public static String getClassAndHashCode(Object object)
+	/**
+	 * A way of solving constraints.  When the constraints of a view are compiled, the engine asks its strategies in order, and the first one that can solve them compiles them.
+	 */
+	interface SolverStrategy
 	{
-		String[] classes = object.getClass().toString().substring(6).split(Pattern.quote("."));
-		String returnString = classes[max(0, classes.length - 1)] + ":" + System.identityHashCode(object);
-		if (object instanceof JLabel)
-		{
-			returnString += ":" + ((JLabel) object).getText();
-		}
-		return returnString;
+		/**
+		 * Called every time a constraint set is compiled, so this should be cheap, especially for the small and simple sets most panels have.
+		 *
+		 * @return <code>true</code> if this strategy lays out <code>constraints</code> correctly
+		 */
+		boolean canSolve(LayoutConstraint[] constraints);
+
+		CompiledLayout compile(Object parent, LayoutConstraint[] constraints, LayoutAdapter adapter, LayoutEngine engine);
 	}
 
-	public void processConstraintsIn(Constrainable view)
-	{
-		JComponent component;
-		try
-		{
-			component = ((JComponent) view);
-		}
-		catch (ClassCastException e)
-		{
-			System.out.println("The constrainable view must be a descendant of JComponent");
-			e.printStackTrace();
-			System.exit(0);
-			return;
-		}
+	/**
+	 * Positions every view in a single pass over a <code>LayoutPlan</code>.  Solving costs one step for each constraint, which makes it the right choice for every constraint set it understands, however large.
+	 */
+	static final SolverStrategy greedy = new GreedyStrategy();
 
-		final LayoutConstraint[] allConstraints = view.allConstraints().clone();
-		Map<Component, ArrayList<LayoutConstraint>> map = new LinkedHashMap<>();
-
-		//Build Map
-		for (LayoutConstraint constraint : allConstraints)
-		{
-			ArrayList<LayoutConstraint> constraintsForView = map.get(constraint.viewOne);
-			if (constraintsForView == null)
-			{
-				constraintsForView = new ArrayList<>();
-			}
-			constraintsForView.add(constraint);
-			map.put(constraint.viewOne, constraintsForView);
-		}
+	/**
+	 * Solves any constraint set with an incremental simplex solver in a <code>SimplexLayout</code>.
+	 */
+	static final SolverStrategy linear = new LinearStrategy();
 
-		//Check for any views with no constraints
-		for (Component subComp : component.getComponents())
-		{
-			if (map.get(subComp) == null)
-			{
-				System.out.println(getClassAndHashCode(subComp) + " does not have any constraints.  It will not be displayed on screen");
-				component.remove(subComp);
-			}
-		}
+	//Declared after the strategies, which every new engine reads
+	/**
+	 * The engine for views that were not given one with <code>setLayoutEngine(_:_:)</code>.
+	 */
+	public static final LayoutEngine current = new LayoutEngine();
 
-		process(map, component);
+	private SolverStrategy[] solverStrategies = { greedy, linear };
+	private boolean specializesLayoutPlans = false;
+	private int resultCacheCapacity = LayoutResultCache.DEFAULT_CAPACITY;
+	private boolean solvesInParallel = true;
+
+	private volatile LayoutStatsListener[] statsListeners = new LayoutStatsListener[0];
+	private final HashMap<String, LayoutEngineStats> mxBeans = new HashMap<>();
+	private final LongAdder panelsSkipped = new LongAdder();
+	//Only touched on the event dispatch thread
+	private AWTEvent lastEvent = null;
+	private int passesInEvent = 0;
+
+	public LayoutEngine() { }
+
+	/**
+	 * Makes <code>engine</code> lay out every <code>Constrainable</code> in <code>root</code>, including <code>root</code> itself, unless a descendant was given an engine of its own.
+	 *
+	 * @param engine the engine to use, or <code>null</code> to go back to the engine of the ancestors
+	 */
+	public static void setLayoutEngine(JComponent root, LayoutEngine engine)
+	{
+		root.putClientProperty(engineKey, engine);
 	}
 
-	private void process(Map<Component, ArrayList<LayoutConstraint>> map, Component parent)
+	/**
+	 * @return the engine set on the closest ancestor of <code>view</code>, including <code>view</code> itself, or <code>current</code> if there is none
+	 */
+	public static LayoutEngine engineFor(Component view)
 	{
-		int height = 0;
-		int width = 0;
-
-		while (map.size() != 0)
+		for (Component component = view; component != null; component = component.getParent())
 		{
-			Component viewToConstrain = map.keySet().iterator().next();
-			ArrayList<LayoutConstraint> constraints = map.get(viewToConstrain);
-			sort(constraints, viewToConstrain);
-
-			constrainPreferredSizeIfNeeded(constraints, viewToConstrain);
-
-			ArrayList<LayoutAttribute[]> attributesSatisfied = new ArrayList<>();
-
-			while (!constraints.isEmpty())
+			if (component instanceof JComponent)
 			{
-				LayoutConstraint constraint = constraints.iterator().next();
-				//MARK: - Perform routine checks to make sure an illegal constraint isn't going to be created
-				if (constraint.attributeOne != LayoutAttribute.width && constraint.attributeOne != LayoutAttribute.height)
-				{
-					if (constraint.multiplier == 0 || constraint.viewTwo == null)
-					{
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  A multiplier of 0 or a null second item together with a location for the first attribute creates an illegal constraint of a location equal to a constant. Location attributes must be specified in pairs.");
-						continue;
-					}
-				}
-
-				if (constraint.viewTwo == parent)
-				{
-					processConstraintOnParent(constraint, attributesSatisfied, parent);
-				}
-				else if (constraint.viewTwo == null)
-				{
-					processConstraintOnNullSecondView(constraint, attributesSatisfied);
-				}
-				else
+				Object engine = ((JComponent) component).getClientProperty(engineKey);
+				if (engine != null)
 				{
-					processConstraint(constraint, attributesSatisfied);
-				}
-
-				if (constraint.hasBeenProcessed)
-				{
-					if (constraint.viewOne.getY() + constraint.viewOne.getHeight() > height)
-					{
-						height = constraint.viewOne.getY() + constraint.viewOne.getHeight();
-					}
-					if (constraint.viewOne.getX() + constraint.viewOne.getWidth() > width)
-					{
-						width = constraint.viewOne.getX() + constraint.viewOne.getWidth();
-					}
-					constraints.remove(constraint);
+					return (LayoutEngine) engine;
 				}
 			}
-			map.remove(viewToConstrain);
 		}
-
-		((Constrainable) parent).setCalculatedHeight(height);
-		((Constrainable) parent).setCalculatedWidth(width);
+		return current;
 	}
 
-	private void processConstraintOnParent(LayoutConstraint constraint, ArrayList<LayoutAttribute[]> attributesSatisfied, Component parent)
+	/**
+	 * When enabled, layout plans are compiled into a hidden class that solves their views in straight-line code instead of being interpreted.  This makes compiling slower and solving faster once the JIT has compiled the class, which pays off for mid-sized constraint sets that are laid out often, such as big static forms.  Plans of more than a couple of thousand constraints are interpreted either way.
+	 * <p>
+	 * The setting applies to plans compiled after it is changed.  Call <code>LayoutCache.invalidate()</code> on existing views to recompile them.
+	 */
+	public void setSpecializesLayoutPlans(boolean specializesLayoutPlans)
 	{
-		constraint.hasBeenProcessed = true;
-		switch (constraint.attributeOne)
-		{
-			case leading:
-			{
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int leading = 0;
-				switch (constraint.attributeTwo)
-				{
-					case leading:
-						leading = constraint.constant;
-						break;
-
-					case centerX:
-						leading = (int) (parent.getBounds().getWidth() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case trailing:
-						leading = (int) (parent.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .leading can only be constrained to .leading, .centerX, or .trailing");
-						break;
-				}
-				constraint.viewOne.setBounds(leading, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.leading, constraint.attributeTwo});
-				break;
-			}
-
-			case trailing:
-			{
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
+		this.specializesLayoutPlans = specializesLayoutPlans;
+	}
 
-				int trailing = 0;
-				switch (constraint.attributeTwo)
-				{
-					case leading:
-						trailing = constraint.constant;
-						break;
+	public boolean specializesLayoutPlans()
+	{
+		return specializesLayoutPlans;
+	}
 
-					case centerX:
-						trailing = (int) (parent.getBounds().getWidth() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
+	/**
+	 * The number of parent sizes each view remembers the solved layout for.  Resizing back to a remembered size applies the remembered frames without solving, which helps when a window is resized back and forth between a few sizes.  A capacity of 0 turns this off.
+	 * <p>
+	 * The setting applies to layouts compiled after it is changed.
+	 */
+	public void setResultCacheCapacity(int resultCacheCapacity)
+	{
+		this.resultCacheCapacity = resultCacheCapacity;
+	}
 
-					case trailing:
-						trailing = (int) (parent.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-						break;
+	public int resultCacheCapacity()
+	{
+		return resultCacheCapacity;
+	}
 
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .trailing can only be constrained to .leading, .centerX, or .trailing");
-						break;
-				}
+	/**
+	 * When enabled, batches passed to <code>processConstraintsIn(List)</code> with at least <code>PARALLEL_SOLVE_THRESHOLD</code> constraints between them are solved on the common <code>ForkJoinPool</code>, as long as it has more than one thread.  Enabled by default.
+	 */
+	public void setSolvesInParallel(boolean solvesInParallel)
+	{
+		this.solvesInParallel = solvesInParallel;
+	}
 
-				if (trailing - constraint.viewOne.getBounds().x < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
+	public boolean solvesInParallel()
+	{
+		return solvesInParallel;
+	}
 
-				if (!contains(attributesSatisfied, LayoutAttribute.leading))
-				{
-					constraint.viewOne.setBounds(trailing - constraint.viewOne.getWidth(), constraint.viewOne.getBounds().y, constraint.viewOne.getWidth(), constraint.viewOne.getBounds().height);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, trailing - constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.trailing, constraint.attributeTwo});
-				break;
-			}
+	/**
+	 * Replaces the strategies the engine picks from, in the order they are asked.  <code>linear</code> is always asked last, whether or not it is included, so every constraint set can be solved.
+	 * <p>
+	 * The strategies apply to constraints compiled after they are changed.
+	 */
+	void setSolverStrategies(SolverStrategy... solverStrategies)
+	{
+		this.solverStrategies = solverStrategies.clone();
+	}
 
-			case top:
+	/**
+	 * @return the first strategy that can solve <code>constraints</code>
+	 */
+	SolverStrategy solverStrategyFor(LayoutConstraint[] constraints)
+	{
+		for (SolverStrategy strategy : solverStrategies)
+		{
+			if (strategy.canSolve(constraints))
 			{
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int top = 0;
-				switch (constraint.attributeTwo)
-				{
-					case top:
-					{
-						top = constraint.constant;
-						break;
-					}
-
-					case centerY:
-					{
-						top = (int) (parent.getBounds().getHeight() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-					}
-
-					case bottom:
-					{
-						top = (int) (parent.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						break;
-					}
-
-					default:
-					{
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .top can only be constrained to .top, .centerY, or .bottom");
-						break;
-					}
-				}
-
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, top, constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.top, constraint.attributeTwo});
-				break;
+				return strategy;
 			}
+		}
+		return linear;
+	}
 
-			case bottom:
-			{
-				if ((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.centerY)) && contains(attributesSatisfied, LayoutAttribute.height))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.top or .centerY) and .height.  Setting .bottom would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int bottom = 0;
-				switch (constraint.attributeTwo)
-				{
-					case top:
-						bottom = constraint.constant;
-						break;
-
-					case centerY:
-						bottom = (int) (parent.getBounds().getHeight() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case bottom:
-						bottom = (int) (parent.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .bottom can only be constrained to .top, .centerY, or .bottom");
-						break;
-				}
-
-				if (bottom - constraint.viewOne.getBounds().y < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The height is negative.");
-					break;
-				}
-
-				if (!contains(attributesSatisfied, LayoutAttribute.top))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, bottom - constraint.viewOne.getHeight(), constraint.viewOne.getWidth(), constraint.viewOne.getBounds().height);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, bottom - constraint.viewOne.getBounds().y);
-				}
-
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.bottom, constraint.attributeTwo});
-				break;
-			}
+	/**
+	 * Tells <code>listener</code> about every layout pass this engine runs from now on.
+	 */
+	public synchronized void addLayoutStatsListener(LayoutStatsListener listener)
+	{
+		LayoutStatsListener[] listeners = Arrays.copyOf(statsListeners, statsListeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+		statsListeners = listeners;
+	}
 
-			case centerX:
+	public synchronized void removeLayoutStatsListener(LayoutStatsListener listener)
+	{
+		for (int index = 0; index < statsListeners.length; index++)
+		{
+			if (statsListeners[index] == listener)
 			{
-				if (contains(attributesSatisfied, LayoutAttribute.trailing) && contains(attributesSatisfied, LayoutAttribute.leading))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified .leading and .trailing.  Setting .centerX would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int centerX = 0;
-				switch (constraint.attributeTwo)
-				{
-					case leading:
-						centerX = constraint.constant;
-						break;
-
-					case centerX:
-						centerX = (int) (parent.getBounds().getWidth() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case trailing:
-						centerX = (int) (parent.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .centerX can only be constrained to .leading, .centerX, or .trailing");
-						break;
-				}
-
-				if (centerX < 0 || (centerX - constraint.viewOne.getBounds().x) * 2 < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
-
-				if (contains(attributesSatisfied, LayoutAttribute.leading))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, (centerX - constraint.viewOne.getBounds().x) * 2, constraint.viewOne.getBounds().height);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(centerX - (constraint.viewOne.getBounds().width / 2), constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.centerX, constraint.attributeTwo});
-				break;
+				LayoutStatsListener[] listeners = new LayoutStatsListener[statsListeners.length - 1];
+				System.arraycopy(statsListeners, 0, listeners, 0, index);
+				System.arraycopy(statsListeners, index + 1, listeners, index, listeners.length - index);
+				statsListeners = listeners;
+				return;
 			}
+		}
+	}
 
-			case centerY:
-			{
-				if (((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.bottom)) && contains(attributesSatisfied, LayoutAttribute.height)) || (contains(attributesSatisfied, LayoutAttribute.top) && contains(attributesSatisfied, LayoutAttribute.bottom)))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified ((.top or .bottom) and .height) or (.top and .bottom).  Setting .centerY would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int centerY = 0;
-				switch (constraint.attributeTwo)
-				{
-					case top:
-						centerY = constraint.constant;
-						break;
-
-					case centerY:
-						centerY = (int) (parent.getBounds().getHeight() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case bottom:
-						centerY = (int) (parent.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						break;
+	/**
+	 * Publishes the totals of every pass this engine runs from now on as a <code>LayoutEngineMXBean</code> named <code>autolayout:type=LayoutEngine,name=</code><i>name</i> on the platform MBean server.
+	 *
+	 * @param name identifies the engine, such as the title of the window it lays out
+	 * @return the totals, which can also be read directly
+	 */
+	public synchronized LayoutEngineStats registerMXBean(String name)
+	{
+		LayoutEngineStats stats = mxBeans.get(name);
+		if (stats != null) { return stats; }
 
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .centerY can only be constrained to .top, .centerY, or .bottom");
-						break;
-				}
+		stats = new LayoutEngineStats();
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(stats, objectNameFor(name));
+		}
+		catch (JMException e)
+		{
+			System.out.println("The layout stats of " + getClassAndHashCode(this) + " could not be published as " + name + ".  They will still be recorded, but are only available from the returned object.");
+			e.printStackTrace();
+		}
+		mxBeans.put(name, stats);
+		addLayoutStatsListener(stats);
+		return stats;
+	}
 
-				if (centerY < 0 || (centerY - constraint.viewOne.getBounds().y) * 2 < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
+	public synchronized void unregisterMXBean(String name)
+	{
+		LayoutEngineStats stats = mxBeans.remove(name);
+		if (stats == null) { return; }
 
-				if (contains(attributesSatisfied, LayoutAttribute.leading))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, (centerY - constraint.viewOne.getBounds().y) * 2);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, centerY - (constraint.viewOne.getBounds().height / 2), constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.centerX, constraint.attributeTwo});
-				break;
-			}
+		removeLayoutStatsListener(stats);
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectNameFor(name));
+		}
+		catch (JMException e)
+		{
+			//Registering it failed in the first place
+		}
+	}
 
-			case width:
-			{
-				if (contains(attributesSatisfied, LayoutAttribute.leading) && contains(attributesSatisfied, LayoutAttribute.trailing))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified .leading and .trailing.  Setting .width would break these constraints");
-					break;
-				}
+	private static ObjectName objectNameFor(String name) throws JMException
+	{
+		return new ObjectName("autolayout:type=LayoutEngine,name=" + ObjectName.quote(name));
+	}
 
-				int width = 0;
-				switch (constraint.attributeTwo)
-				{
-					case width:
-						width = (int) (parent.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-
-						if (constraint.relation == LayoutRelation.greaterThanOrEqual)
-						{
-							width = max(width, constraint.viewOne.getPreferredSize().width);
-						}
-						else if (constraint.relation == LayoutRelation.lessThanOrEqual)
-						{
-							width = Integer.min(width, constraint.viewOne.getPreferredSize().width);
-						}
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .width can only be constrained to .width");
-						break;
-				}
+	/**
+	 * Called by views whose subviews were checked for a layout pass, with the number of them that skipped it because nothing they depend on changed.  Skips are counted in the stats of the next pass.
+	 */
+	public void didSkipLayout(int count)
+	{
+		if (statsListeners.length > 0)
+		{
+			panelsSkipped.add(count);
+		}
+	}
 
-				if (width < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
+	/**
+	 * Starts measuring a pass, if anyone is listening.
+	 *
+	 * @return the stats to fill in, or <code>null</code> if the pass is not measured
+	 */
+	private LayoutPassStats beginPass(Object parent)
+	{
+		if (statsListeners.length == 0) { return null; }
 
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, width, constraint.viewOne.getBounds().height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.width, constraint.attributeTwo});
-				break;
-			}
+		LayoutPassStats stats = new LayoutPassStats();
+		//Checked first, so laying out a LayoutModel never starts AWT
+		if (parent instanceof Component && EventQueue.isDispatchThread())
+		{
+			AWTEvent event = EventQueue.getCurrentEvent();
+			passesInEvent = event != null && event == lastEvent ? passesInEvent + 1 : 1;
+			lastEvent = event;
+			stats.passesInEvent = event != null ? passesInEvent : 0;
+		}
+		stats.durationNanos = System.nanoTime();
+		return stats;
+	}
 
-			case height:
-			{
-				if ((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.centerY)) && contains(attributesSatisfied, LayoutAttribute.bottom))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.top or .centerY) and .bottom.  Setting .height would break the constraints");
-					break;
-				}
+	/**
+	 * Counts a prepared layout towards the stats of its pass.
+	 */
+	private static void didPrepare(LayoutPassStats stats, LayoutCache cache, boolean needsSolving)
+	{
+		if (stats == null) { return; }
 
-				int height = 0;
-				switch (constraint.attributeTwo)
-				{
-					case height:
-						height = (int) (parent.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						if (constraint.relation == LayoutRelation.greaterThanOrEqual)
-						{
-							height = max(height, constraint.viewOne.getPreferredSize().height);
-						}
-						else if (constraint.relation == LayoutRelation.lessThanOrEqual)
-						{
-							height = Integer.min(height, constraint.viewOne.getPreferredSize().height);
-						}
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .height can only be constrained to .height");
-						break;
-				}
+		stats.viewsLaidOut++;
+		if (needsSolving)
+		{
+			stats.constraintsEvaluated += cache.layout.size();
+		}
+		else
+		{
+			stats.cachedResults++;
+		}
+	}
 
-				if (height < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The height is negative.");
-					break;
-				}
+	private void finishPass(LayoutPassStats stats)
+	{
+		if (stats == null) { return; }
 
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.height, constraint.attributeTwo});
-				break;
-			}
+		stats.durationNanos = System.nanoTime() - stats.durationNanos;
+		stats.panelsSkipped = panelsSkipped.sumThenReset();
+		for (LayoutStatsListener listener : statsListeners)
+		{
+			listener.layoutPassFinished(this, stats);
 		}
 	}
 
-	private void processConstraint(LayoutConstraint constraint, ArrayList<LayoutAttribute[]> attributesSatisfied)
+	public static String getClassAndHashCode(Object object)
 	{
-		constraint.hasBeenProcessed = true;
-		switch (constraint.attributeOne)
+		String[] classes = object.getClass().toString().substring(6).split(Pattern.quote("."));
+		String returnString = classes[max(0, classes.length - 1)] + ":" + System.identityHashCode(object);
+		if (object instanceof JLabel)
 		{
-			case top:
-			{
-				if ((contains(attributesSatisfied, LayoutAttribute.bottom) || contains(attributesSatisfied, LayoutAttribute.centerY)) && contains(attributesSatisfied, LayoutAttribute.height))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.bottom or .centerY) and .height.  Setting .top would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int top = 0;
-				switch (constraint.attributeTwo)
-				{
-					case top:
-					{
-						top = constraint.constant;
-						break;
-					}
-
-					case centerY:
-					{
-						top = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-					}
-
-					case bottom:
-					{
-						top = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						break;
-					}
+			returnString += ":" + ((JLabel) object).getText();
+		}
+		else if (object instanceof LayoutNode)
+		{
+			returnString += ":" + ((LayoutNode) object).getName();
+		}
+		return returnString;
+	}
 
-					default:
-					{
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .top can only be constrained to .top, .centerY, or .bottom");
-						break;
-					}
-				}
+	public void processConstraintsIn(Constrainable view)
+	{
+		JComponent component = componentFor(view);
+		LayoutCache cache = layoutCacheFor(view);
+		process(component, cache.isCompiled() ? null : view.allConstraints(), cache);
+		view.setCalculatedHeight(cache.calculatedHeight);
+		view.setCalculatedWidth(cache.calculatedWidth);
+	}
 
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, top, constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.top, constraint.attributeTwo});
-				break;
-			}
+	/**
+	 * Lays out several views whose constraints are independent of each other, such as sibling panels.  Must be called on the event dispatch thread.
+	 * <p>
+	 * Batches with at least <code>PARALLEL_SOLVE_THRESHOLD</code> constraints between them are solved in parallel when <code>solvesInParallel()</code> is enabled and the common <code>ForkJoinPool</code> has more than one thread.  The constraints, frames, and preferred sizes of every view are read first, the constraint systems are then solved concurrently without touching any view, and once every system is solved all frames are applied in one batch.  Any other batch is laid out one view at a time, the same as calling <code>processConstraintsIn(Constrainable)</code> for each, but measured as a single pass.  Only the views in <code>views</code> are laid out, not their descendants.
+	 */
+	public void processConstraintsIn(List<? extends Constrainable> views)
+	{
+		int count = views.size();
+		if (count == 0) { return; }
 
-			case bottom:
+		LayoutPassStats stats = beginPass(views.get(0));
+		if (solvesInParallel && count > 1 && ForkJoinPool.getCommonPoolParallelism() > 1 && compiledSize(views) >= PARALLEL_SOLVE_THRESHOLD)
+		{
+			processInParallel(views, stats);
+		}
+		else
+		{
+			//Each view is prepared, solved and committed while its plan is still in the cache, which beats three passes over the batch when nothing runs concurrently
+			for (int index = 0; index < count; index++)
 			{
-				if ((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.centerX)) && contains(attributesSatisfied, LayoutAttribute.height))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.top or .centerY) and .height.  Setting .bottom would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int bottom = 0;
-				switch (constraint.attributeTwo)
-				{
-					case top:
-						bottom = constraint.constant;
-						break;
-
-					case centerY:
-						bottom = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case bottom:
-						bottom = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .bottom can only be constrained to .top, .centerY, or .bottom");
-						break;
-				}
-
-				if (bottom - constraint.viewOne.getBounds().y < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The height is negative.");
-					break;
-				}
-
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, bottom - constraint.viewOne.getBounds().y);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.bottom, constraint.attributeTwo});
-				break;
+				Constrainable view = views.get(index);
+				JComponent component = componentFor(view);
+				LayoutCache cache = layoutCacheFor(view);
+				boolean needsSolving = prepare(component, cache.isCompiled() ? null : view.allConstraints(), cache, SwingLayoutAdapter.shared);
+				didPrepare(stats, cache, needsSolving);
+				if (needsSolving)
+				{
+					solve(cache);
+				}
+				commit(component, cache, SwingLayoutAdapter.shared, stats);
+				view.setCalculatedHeight(cache.calculatedHeight);
+				view.setCalculatedWidth(cache.calculatedWidth);
 			}
+		}
+		finishPass(stats);
+	}
 
-			case leading:
+	/**
+	 * @return the number of constraints in the compiled layouts of <code>views</code>, as an upper bound of the work a batch will solve.  Views that are not compiled yet do not count, so the first pass of a new batch is not solved in parallel.
+	 */
+	private static int compiledSize(List<? extends Constrainable> views)
+	{
+		int size = 0;
+		for (int index = 0; index < views.size(); index++)
+		{
+			LayoutCache cache = views.get(index).layoutCache();
+			if (cache != null && cache.isCompiled())
 			{
-				if ((contains(attributesSatisfied, LayoutAttribute.trailing) || contains(attributesSatisfied, LayoutAttribute.centerX)) && contains(attributesSatisfied, LayoutAttribute.width))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.trailing or .centerX) and .width.  Setting .leading would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int leading = 0;
-				switch (constraint.attributeTwo)
-				{
-					case leading:
-						leading = constraint.constant;
-						break;
-
-					case centerX:
-						leading = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case trailing:
-						leading = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .leading can only be constrained to .leading, .centerX, or .trailing");
-						break;
-				}
-
-				constraint.viewOne.setBounds(leading, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.leading, constraint.attributeTwo});
-				break;
+				size += cache.layout.size();
 			}
+		}
+		return size;
+	}
 
-			case trailing:
-			{
-				if ((contains(attributesSatisfied, LayoutAttribute.leading) || contains(attributesSatisfied, LayoutAttribute.centerX)) && contains(attributesSatisfied, LayoutAttribute.width))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.leading or .centerX) and .width.  Setting .trailing would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int trailing = 0;
-				switch (constraint.attributeTwo)
-				{
-					case leading:
-						trailing = (int) (constraint.viewTwo.getBounds().getX() * constraint.multiplier) + constraint.constant;
-						break;
-
-					case centerX:
-						trailing = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case trailing:
-						trailing = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .trailing can only be constrained to .leading, .centerX, or .trailing");
-						break;
-				}
-
-				if (trailing - constraint.viewOne.getBounds().x < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
-
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, trailing - constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.trailing, constraint.attributeTwo});
-				break;
-			}
+	private void processInParallel(List<? extends Constrainable> views, LayoutPassStats stats)
+	{
+		int count = views.size();
+		JComponent[] components = new JComponent[count];
+		LayoutCache[] caches = new LayoutCache[count];
+		LayoutCache[] solving = new LayoutCache[count];
+		int solvingCount = 0;
 
-			case width:
+		for (int index = 0; index < count; index++)
+		{
+			Constrainable view = views.get(index);
+			components[index] = componentFor(view);
+			caches[index] = layoutCacheFor(view);
+			boolean needsSolving = prepare(components[index], caches[index].isCompiled() ? null : view.allConstraints(), caches[index], SwingLayoutAdapter.shared);
+			didPrepare(stats, caches[index], needsSolving);
+			if (needsSolving)
 			{
-				if ((contains(attributesSatisfied, LayoutAttribute.leading) || contains(attributesSatisfied, LayoutAttribute.centerX)) && contains(attributesSatisfied, LayoutAttribute.trailing))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.leading or .centerX) and .trailing.  Setting .width would break the constraints");
-					break;
-				}
-
-				int width = 0;
-				switch (constraint.attributeTwo)
-				{
-					case width:
-						width = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-
-						if (constraint.relation == LayoutRelation.greaterThanOrEqual)
-						{
-							width = max(width, constraint.viewOne.getPreferredSize().width);
-						}
-						else if (constraint.relation == LayoutRelation.lessThanOrEqual)
-						{
-							width = Integer.min(width, constraint.viewOne.getPreferredSize().width);
-						}
-						break;
-
-					case height:
-						if (constraint.viewOne == constraint.viewTwo)
-						{
-							if (contains(attributesSatisfied, LayoutAttribute.height) || (contains(attributesSatisfied, LayoutAttribute.top) && contains(attributesSatisfied, LayoutAttribute.bottom)))
-							{
-								width = constraint.viewOne.getHeight();
-							}
-							else
-							{
-								//Needs another chance to get the height made up
-								constraint.hasBeenProcessed = false;
-							}
-						}
-						else
-						{
-							width = constraint.viewTwo.getHeight();
-						}
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .width can only be constrained to .width or .height");
-						break;
-				}
-
-				if (width < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
-
-				if (contains(attributesSatisfied, LayoutAttribute.trailing))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x - width, constraint.viewOne.getBounds().y, width, constraint.viewOne.getBounds().height);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, width, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.width, constraint.attributeTwo});
-				break;
+				solving[solvingCount++] = caches[index];
 			}
+		}
 
-			case height:
-			{
-				if ((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.centerY)) && contains(attributesSatisfied, LayoutAttribute.bottom))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.top or .centerY) and .bottom.  Setting .height would break the constraints");
-					break;
-				}
+		if (solvingCount == 1)
+		{
+			solve(solving[0]);
+		}
+		else if (solvingCount > 1)
+		{
+			ForkJoinPool.commonPool().invoke(new SolveAction(solving, 0, solvingCount));
+		}
 
-				int height = 0;
-				switch (constraint.attributeTwo)
-				{
-					case height:
-						height = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						if (constraint.relation == LayoutRelation.greaterThanOrEqual)
-						{
-							height = max(height, constraint.viewOne.getPreferredSize().height);
-						}
-						else if (constraint.relation == LayoutRelation.lessThanOrEqual)
-						{
-							height = Integer.min(height, constraint.viewOne.getPreferredSize().height);
-						}
-						break;
-
-					case width:
-					{
-						if (constraint.viewOne == constraint.viewTwo)
-						{
-							if (contains(attributesSatisfied, LayoutAttribute.width) || (contains(attributesSatisfied, LayoutAttribute.leading) && contains(attributesSatisfied, LayoutAttribute.trailing)))
-							{
-								height = constraint.viewOne.getWidth();
-							}
-							else
-							{
-								//Needs another chance to get the width made up
-								constraint.hasBeenProcessed = false;
-							}
-						}
-						else
-						{
-							height = constraint.viewTwo.getHeight();
-						}
-					}
+		for (int index = 0; index < count; index++)
+		{
+			commit(components[index], caches[index], SwingLayoutAdapter.shared, stats);
+			views.get(index).setCalculatedHeight(caches[index].calculatedHeight);
+			views.get(index).setCalculatedWidth(caches[index].calculatedWidth);
+		}
+	}
 
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .height can only be constrained to .height");
-						break;
-				}
+	/**
+	 * Solves a range of prepared layouts, splitting it in halves until each task solves a single layout.
+	 */
+	private static final class SolveAction extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
 
-				if (height < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The height is negative.");
-					break;
-				}
+		private final LayoutCache[] caches;
+		private final int from;
+		private final int to;
 
-				if (contains(attributesSatisfied, LayoutAttribute.bottom))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y - height, constraint.viewOne.getBounds().width, height);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.height, constraint.attributeTwo});
-				break;
-			}
+		SolveAction(LayoutCache[] caches, int from, int to)
+		{
+			this.caches = caches;
+			this.from = from;
+			this.to = to;
+		}
 
-			case centerX:
+		@Override
+		protected void compute()
+		{
+			if (to - from == 1)
 			{
-				if (((contains(attributesSatisfied, LayoutAttribute.trailing) || contains(attributesSatisfied, LayoutAttribute.leading)) && contains(attributesSatisfied, LayoutAttribute.width)) || (contains(attributesSatisfied, LayoutAttribute.trailing) && contains(attributesSatisfied, LayoutAttribute.leading)))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified ((.leading or .trailing) and .width) or (.leading and .trailing).  Setting .centerX would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int centerX = 0;
-				switch (constraint.attributeTwo)
-				{
-					case leading:
-						centerX = constraint.constant;
-						break;
-
-					case centerX:
-						centerX = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
-
-					case trailing:
-						centerX = constraint.viewTwo.getBounds().x + (int) (constraint.viewTwo.getBounds().getWidth() * constraint.multiplier) + constraint.constant;
-						break;
-
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .centerX can only be constrained to .leading, .centerX, or .trailing");
-						break;
-				}
-
-				if (centerX < 0 || (centerX - constraint.viewOne.getBounds().x) * 2 < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
-
-				if (contains(attributesSatisfied, LayoutAttribute.leading))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, (centerX - constraint.viewOne.getBounds().x) * 2, constraint.viewOne.getBounds().height);
-				}
-				else if (contains(attributesSatisfied, LayoutAttribute.width))
-				{
-					constraint.viewOne.setBounds(centerX - (constraint.viewOne.getBounds().width / 2), constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.centerX, constraint.attributeTwo});
-				break;
+				solve(caches[from]);
+				return;
 			}
 
-			case centerY:
-			{
-				if (((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.bottom)) && contains(attributesSatisfied, LayoutAttribute.height)) || (contains(attributesSatisfied, LayoutAttribute.top) && contains(attributesSatisfied, LayoutAttribute.bottom)))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified ((.top or .bottom) and .height) or (.top and .bottom).  Setting .centerY would break the constraints");
-					break;
-				}
-
-				if (constraint.relation != LayoutRelation.equal)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You must set the relation to .equal");
-					break;
-				}
-
-				int centerY = 0;
-				switch (constraint.attributeTwo)
-				{
-					case top:
-						centerY = constraint.constant;
-						break;
-
-					case centerY:
-						centerY = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() / 2.0 * constraint.multiplier) + constraint.constant;
-						break;
+			int middle = (from + to) >>> 1;
+			invokeAll(new SolveAction(caches, from, middle), new SolveAction(caches, middle, to));
+		}
+	}
 
-					case bottom:
-						centerY = constraint.viewTwo.getBounds().y + (int) (constraint.viewTwo.getBounds().getHeight() * constraint.multiplier) + constraint.constant;
-						break;
+	private static JComponent componentFor(Constrainable view)
+	{
+		try
+		{
+			return ((JComponent) view);
+		}
+		catch (ClassCastException e)
+		{
+			System.out.println("The constrainable view must be a descendant of JComponent");
+			e.printStackTrace();
+			System.exit(0);
+			return null;
+		}
+	}
 
-					default:
-						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  .centerY can only be constrained to .top, .centerY, or .bottom");
-						break;
-				}
+	private static LayoutCache layoutCacheFor(Constrainable view)
+	{
+		LayoutCache cache = view.layoutCache();
+		if (cache == null)
+		{
+			//Without a cache, the constraints are compiled from scratch on every pass
+			cache = new LayoutCache();
+		}
+		return cache;
+	}
 
-				if (centerY < 0 || (centerY - constraint.viewOne.getBounds().y) * 2 < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
+	/**
+	 * Lays out the subviews of <code>container</code>, compiling <code>allConstraints</code> first if <code>cache</code> has not been compiled yet.
+	 *
+	 * @param allConstraints the constraints of the container, only read if <code>cache</code> needs compiling
+	 */
+	void process(Container container, LayoutConstraint[] allConstraints, LayoutCache cache)
+	{
+		process(container, allConstraints, cache, SwingLayoutAdapter.shared);
+	}
 
-				if (contains(attributesSatisfied, LayoutAttribute.leading))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, (centerY - constraint.viewOne.getBounds().y) * 2);
-				}
-				else if (contains(attributesSatisfied, LayoutAttribute.width))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, centerY - (constraint.viewOne.getBounds().height / 2), constraint.viewOne.getBounds().width, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.centerX, constraint.attributeTwo});
-				break;
-			}
+	/**
+	 * Lays out the items constrained in <code>parent</code>, reading and writing them through <code>adapter</code>.
+	 *
+	 * @param allConstraints the constraints of the parent, only read if <code>cache</code> needs compiling
+	 */
+	void process(Object parent, LayoutConstraint[] allConstraints, LayoutCache cache, LayoutAdapter adapter)
+	{
+		LayoutPassStats stats = beginPass(parent);
+		boolean needsSolving = prepare(parent, allConstraints, cache, adapter);
+		didPrepare(stats, cache, needsSolving);
+		if (needsSolving)
+		{
+			solve(cache);
 		}
+		commit(parent, cache, adapter, stats);
+		finishPass(stats);
 	}
 
-	private void processConstraintOnNullSecondView(LayoutConstraint constraint, ArrayList<LayoutAttribute[]> attributesSatisfied)
+	/**
+	 * Compiles the constraints if needed, and reads the state of the items they are solved from.
+	 *
+	 * @return <code>true</code> if the layout needs solving, or <code>false</code> if a remembered result was picked up
+	 */
+	private boolean prepare(Object parent, LayoutConstraint[] allConstraints, LayoutCache cache, LayoutAdapter adapter)
 	{
-		constraint.hasBeenProcessed = true;
-		switch (constraint.attributeOne)
+		if (!cache.isCompiled())
 		{
-			case width:
-			{
-				if ((contains(attributesSatisfied, LayoutAttribute.leading) || contains(attributesSatisfied, LayoutAttribute.centerX)) && contains(attributesSatisfied, LayoutAttribute.trailing))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.leading or .centerX) and .trailing.  Setting .width would break the constraints");
-					break;
-				}
-
-				int width = constraint.constant;
+			compile(parent, allConstraints, cache, adapter);
+		}
+		return cache.layout.prepare(parent);
+	}
 
-				if (constraint.relation == LayoutRelation.greaterThanOrEqual)
-				{
-					width = max(width, constraint.viewOne.getPreferredSize().width);
-				}
-				else if (constraint.relation == LayoutRelation.lessThanOrEqual)
-				{
-					width = Integer.min(width, constraint.viewOne.getPreferredSize().width);
-				}
+	/**
+	 * Solves a prepared layout.  Safe to call off the event dispatch thread, as long as no other thread uses the same cache.
+	 */
+	private static void solve(LayoutCache cache)
+	{
+		cache.layout.solve();
+	}
 
-				if (width < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The width is negative.");
-					break;
-				}
+	private static void commit(Object parent, LayoutCache cache, LayoutAdapter adapter, LayoutPassStats stats)
+	{
+		cache.layout.commit(stats);
+		cache.calculatedWidth = cache.layout.calculatedWidth();
+		cache.calculatedHeight = cache.layout.calculatedHeight();
+		cache.didLayout(adapter.width(parent), adapter.height(parent));
+	}
 
-				if (contains(attributesSatisfied, LayoutAttribute.trailing))
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x - width, constraint.viewOne.getBounds().y, width, constraint.viewOne.getBounds().height);
-				}
-				else
-				{
-					constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, width, constraint.viewOne.getBounds().height);
-				}
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.width, constraint.attributeTwo});
-				break;
+	/**
+	 * Builds everything the engine needs to lay out <code>parent</code>.  This only runs when its <code>LayoutCache</code> has been invalidated.
+	 */
+	private void compile(Object parent, LayoutConstraint[] allConstraints, LayoutCache cache, LayoutAdapter adapter)
+	{
+		//Check for any views with no constraints
+		if (parent instanceof Container)
+		{
+			HashSet<Object> constrainedItems = new HashSet<>();
+			for (LayoutConstraint constraint : allConstraints)
+			{
+				constrainedItems.add(constraint.itemOne);
 			}
 
-			case height:
+			Container component = (Container) parent;
+			for (Component subComp : component.getComponents())
 			{
-				if ((contains(attributesSatisfied, LayoutAttribute.top) || contains(attributesSatisfied, LayoutAttribute.centerY)) && contains(attributesSatisfied, LayoutAttribute.bottom))
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  You have already specified (.top or .centerY) and .bottom.  Setting .height would break the constraints");
-					break;
-				}
-				int height = constraint.constant;
-				if (constraint.relation == LayoutRelation.greaterThanOrEqual)
+				if (!constrainedItems.contains(subComp))
 				{
-					height = max(height, constraint.viewOne.getPreferredSize().height);
+					System.out.println(getClassAndHashCode(subComp) + " does not have any constraints.  It will not be displayed on screen");
+					component.remove(subComp);
 				}
-				else if (constraint.relation == LayoutRelation.lessThanOrEqual)
-				{
-					height = Integer.min(height, constraint.viewOne.getPreferredSize().height);
-				}
-
-				if (height < 0)
-				{
-					System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  The height is negative.");
-					break;
-				}
-
-				constraint.viewOne.setBounds(constraint.viewOne.getBounds().x, constraint.viewOne.getBounds().y, constraint.viewOne.getBounds().width, height);
-				attributesSatisfied.add(new LayoutAttribute[]{LayoutAttribute.height, constraint.attributeTwo});
-				break;
-			}
-
-			default:
-			{
-				System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  A multiplier of 0 or a nil second item together with a location for the first attribute creates an illegal constraint of a location equal to a constant. Location attributes must be specified in pairs.");
-				break;
 			}
 		}
-	}
 
-	private void sort(ArrayList<LayoutConstraint> constraints, Component viewToConstrain)
-	{
-		constraints.sort((o1, o2) ->
-		                 {
-			                 //Leading/Trailing
-			                 if (o1.attributeOne == LayoutAttribute.leading)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.leading)
-				                 {
-					                 System.out.println("There are multiple constraints for .leading for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 return -1;
-			                 }
-			                 else if (o1.attributeOne == LayoutAttribute.trailing)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.trailing)
-				                 {
-					                 System.out.println("There are multiple constraints for .trailing for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 //Top/Bottom
-			                 else if (o1.attributeOne == LayoutAttribute.top)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.top)
-				                 {
-					                 System.out.println("There are multiple constraints for .top for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading || o2.attributeOne == LayoutAttribute.trailing)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 else if (o1.attributeOne == LayoutAttribute.bottom)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.bottom)
-				                 {
-					                 System.out.println("There are multiple constraints for .bottom for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading || o2.attributeOne == LayoutAttribute.trailing || o2.attributeOne == LayoutAttribute.top)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 //Width/Height
-			                 else if (o1.attributeOne == LayoutAttribute.width)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.width)
-				                 {
-					                 System.out.println("There are multiple constraints for .width for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading || o2.attributeOne == LayoutAttribute.trailing || o2.attributeOne == LayoutAttribute.top || o2.attributeOne == LayoutAttribute.bottom)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 else if (o1.attributeOne == LayoutAttribute.height)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.height)
-				                 {
-					                 System.out.println("There are multiple constraints for .height for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading || o2.attributeOne == LayoutAttribute.trailing || o2.attributeOne == LayoutAttribute.top || o2.attributeOne == LayoutAttribute.bottom || o2.attributeOne == LayoutAttribute.width)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 //Centers
-			                 else if (o1.attributeOne == LayoutAttribute.centerX)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.centerX)
-				                 {
-					                 System.out.println("There are multiple constraints for .centerX for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading || o2.attributeOne == LayoutAttribute.trailing || o2.attributeOne == LayoutAttribute.top || o2.attributeOne == LayoutAttribute.bottom || o2.attributeOne == LayoutAttribute.width || o2.attributeOne == LayoutAttribute.height)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 else if (o1.attributeOne == LayoutAttribute.centerY)
-			                 {
-				                 if (o2.attributeOne == LayoutAttribute.centerY)
-				                 {
-					                 System.out.println("There are multiple constraints for .centerY for " + viewToConstrain.toString() + ".  AutoLayout cannot position this view.  Please check your constraints and find the one you don't want and remove it.");
-					                 System.exit(-1);
-					                 return 0;
-				                 }
-				                 else if (o2.attributeOne == LayoutAttribute.leading || o2.attributeOne == LayoutAttribute.trailing || o2.attributeOne == LayoutAttribute.top || o2.attributeOne == LayoutAttribute.bottom || o2.attributeOne == LayoutAttribute.centerX || o2.attributeOne == LayoutAttribute.width || o2.attributeOne == LayoutAttribute.height)
-				                 {
-					                 return 1;
-				                 }
-				                 return -1;
-			                 }
-			                 else
-			                 {
-				                 System.out.println("Unsupported Constraint: " + o1.toString());
-				                 System.exit(-1);
-				                 return 0;
-			                 }
-		                 });
+		cache.layout = solverStrategyFor(allConstraints).compile(parent, allConstraints, adapter, this);
 	}
 
-	private void constrainPreferredSizeIfNeeded(ArrayList<LayoutConstraint> constraints, Component viewToConstrain)
+	private static final class GreedyStrategy implements SolverStrategy
 	{
-		ArrayList<LayoutAttribute> foundAttributes = new ArrayList<>();
-		for (LayoutConstraint constraint : constraints)
+		/**
+		 * The greedy engine only understands required constraints, and only understands inequalities on .width and .height.  Most constraint sets have no inequalities at all, and are accepted after a single scan.
+		 */
+		@Override
+		public boolean canSolve(LayoutConstraint[] constraints)
 		{
-			if (constraint.attributeOne == LayoutAttribute.width)
-			{
-				foundAttributes.add(LayoutAttribute.width);
-			}
-			else if (constraint.attributeOne == LayoutAttribute.height)
-			{
-				foundAttributes.add(LayoutAttribute.height);
-			}
-			else if (constraint.attributeOne == LayoutAttribute.leading)
-			{
-				foundAttributes.add(LayoutAttribute.leading);
-				if (foundAttributes.contains(LayoutAttribute.trailing))
-				{
-					foundAttributes.add(LayoutAttribute.width);
-				}
-			}
-			else if (constraint.attributeOne == LayoutAttribute.trailing)
+			HashMap<Object, Integer> inequalities = null;
+			for (LayoutConstraint constraint : constraints)
 			{
-				foundAttributes.add(LayoutAttribute.trailing);
-				if (foundAttributes.contains(LayoutAttribute.leading))
+				if (constraint.priority < 1000)
 				{
-					foundAttributes.add(LayoutAttribute.width);
+					return false;
 				}
-			}
-			else if (constraint.attributeOne == LayoutAttribute.top)
-			{
-				foundAttributes.add(LayoutAttribute.top);
-				if (foundAttributes.contains(LayoutAttribute.bottom))
+				if (constraint.relation != LayoutRelation.equal)
 				{
-					foundAttributes.add(LayoutAttribute.height);
+					if (constraint.attributeOne != LayoutAttribute.width && constraint.attributeOne != LayoutAttribute.height)
+					{
+						return false;
+					}
+					if (inequalities == null)
+					{
+						inequalities = new HashMap<>();
+					}
+					inequalities.merge(constraint.itemOne, 1 << constraint.attributeOne.ordinal(), (one, two) -> one | two);
 				}
 			}
-			else if (constraint.attributeOne == LayoutAttribute.bottom)
+			if (inequalities == null) { return true; }
+
+			//Multiple constraints on an attribute with an inequality, such as a minimum and a maximum width
+			HashMap<Object, Integer> seen = new HashMap<>();
+			for (LayoutConstraint constraint : constraints)
 			{
-				foundAttributes.add(LayoutAttribute.bottom);
-				if (foundAttributes.contains(LayoutAttribute.top))
+				Integer mask = inequalities.get(constraint.itemOne);
+				int attribute = 1 << constraint.attributeOne.ordinal();
+				if (mask != null && (mask & attribute) != 0)
 				{
-					foundAttributes.add(LayoutAttribute.height);
+					int seenMask = seen.getOrDefault(constraint.itemOne, 0);
+					if ((seenMask & attribute) != 0)
+					{
+						return false;
+					}
+					seen.put(constraint.itemOne, seenMask | attribute);
 				}
 			}
+			return true;
 		}
 
-		if (!foundAttributes.contains(LayoutAttribute.width))
-		{
-			viewToConstrain.setBounds(viewToConstrain.getBounds().x, viewToConstrain.getBounds().y, viewToConstrain.getPreferredSize().width, viewToConstrain.getBounds().height);
-		}
-		if (!foundAttributes.contains(LayoutAttribute.height))
+		@Override
+		public CompiledLayout compile(Object parent, LayoutConstraint[] constraints, LayoutAdapter adapter, LayoutEngine engine)
 		{
-			viewToConstrain.setBounds(viewToConstrain.getBounds().x, viewToConstrain.getBounds().y, viewToConstrain.getBounds().width, viewToConstrain.getPreferredSize().height);
+			return new LayoutPlan(parent, constraints, adapter, engine.specializesLayoutPlans, engine.resultCacheCapacity);
 		}
 	}
 
-	private boolean contains(ArrayList<LayoutAttribute[]> attributes, LayoutAttribute attribute)
+	private static final class LinearStrategy implements SolverStrategy
 	{
-		for (LayoutAttribute[] pair : attributes)
+		@Override
+		public boolean canSolve(LayoutConstraint[] constraints)
+		{
+			return true;
+		}
+
+		@Override
+		public CompiledLayout compile(Object parent, LayoutConstraint[] constraints, LayoutAdapter adapter, LayoutEngine engine)
 		{
-			if (pair[0] == attribute) { return true; }
+			return new SimplexLayout(parent, constraints, adapter, engine.resultCacheCapacity);
 		}
-		return false;
 	}
-}
\ No newline at end of file
+}
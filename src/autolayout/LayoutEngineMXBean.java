@@ -0,0 +1,51 @@
+package autolayout;
+
+/**
+ * The totals of every layout pass of a <code>LayoutEngine</code>, published over JMX so layout time can be monitored and alerted on like garbage collection time.
+ * <p>
+ * Every value is a running total since the engine was registered or <code>reset()</code> was last called, except the maximums, which are the largest single value seen in that time.
+ *
+ * @see LayoutEngine#registerMXBean(String)
+ */
+public interface LayoutEngineMXBean
+{
+	long getPassCount();
+
+	long getTotalPassTimeNanos();
+
+	long getMaxPassTimeNanos();
+
+	/**
+	 * @return the average time of a pass, or 0 if there has not been one
+	 */
+	double getAveragePassTimeNanos();
+
+	long getViewsLaidOut();
+
+	long getConstraintsEvaluated();
+
+	long getCachedResults();
+
+	long getSetBoundsCalls();
+
+	long getViewsMoved();
+
+	long getPanelsSkipped();
+
+	/**
+	 * @return the number of events dispatched on the event dispatch thread that ran at least one pass
+	 */
+	long getEventsWithLayout();
+
+	/**
+	 * @return the most passes run while dispatching a single event
+	 */
+	long getMaxPassesPerEvent();
+
+	/**
+	 * @return the average number of passes run by events that ran at least one, or 0 if there has not been one
+	 */
+	double getAveragePassesPerEvent();
+
+	void reset();
+}
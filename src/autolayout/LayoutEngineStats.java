@@ -0,0 +1,145 @@
+package autolayout;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A <code>LayoutStatsListener</code> that keeps running totals, and publishes them as a <code>LayoutEngineMXBean</code>.
+ * <p>
+ * The totals are striped <code>LongAdder</code>s, so recording a pass never contends with a monitoring thread reading them, or with passes of other engines sharing the same instance.
+ */
+public final class LayoutEngineStats implements LayoutStatsListener, LayoutEngineMXBean
+{
+	private final LongAdder passCount = new LongAdder();
+	private final LongAdder totalPassTimeNanos = new LongAdder();
+	private final LongAccumulator maxPassTimeNanos = new LongAccumulator(Long::max, 0);
+	private final LongAdder viewsLaidOut = new LongAdder();
+	private final LongAdder constraintsEvaluated = new LongAdder();
+	private final LongAdder cachedResults = new LongAdder();
+	private final LongAdder setBoundsCalls = new LongAdder();
+	private final LongAdder viewsMoved = new LongAdder();
+	private final LongAdder panelsSkipped = new LongAdder();
+	private final LongAdder eventsWithLayout = new LongAdder();
+	private final LongAdder passesInEvents = new LongAdder();
+	private final LongAccumulator maxPassesPerEvent = new LongAccumulator(Long::max, 0);
+
+	@Override
+	public void layoutPassFinished(LayoutEngine engine, LayoutPassStats stats)
+	{
+		passCount.increment();
+		totalPassTimeNanos.add(stats.durationNanos());
+		maxPassTimeNanos.accumulate(stats.durationNanos());
+		viewsLaidOut.add(stats.viewsLaidOut());
+		constraintsEvaluated.add(stats.constraintsEvaluated());
+		cachedResults.add(stats.cachedResults());
+		setBoundsCalls.add(stats.setBoundsCalls());
+		viewsMoved.add(stats.viewsMoved());
+		panelsSkipped.add(stats.panelsSkipped());
+		if (stats.passesInEvent() > 0)
+		{
+			if (stats.passesInEvent() == 1)
+			{
+				eventsWithLayout.increment();
+			}
+			passesInEvents.increment();
+			maxPassesPerEvent.accumulate(stats.passesInEvent());
+		}
+	}
+
+	@Override
+	public long getPassCount()
+	{
+		return passCount.sum();
+	}
+
+	@Override
+	public long getTotalPassTimeNanos()
+	{
+		return totalPassTimeNanos.sum();
+	}
+
+	@Override
+	public long getMaxPassTimeNanos()
+	{
+		return maxPassTimeNanos.get();
+	}
+
+	@Override
+	public double getAveragePassTimeNanos()
+	{
+		long passes = passCount.sum();
+		return passes == 0 ? 0 : (double) totalPassTimeNanos.sum() / passes;
+	}
+
+	@Override
+	public long getViewsLaidOut()
+	{
+		return viewsLaidOut.sum();
+	}
+
+	@Override
+	public long getConstraintsEvaluated()
+	{
+		return constraintsEvaluated.sum();
+	}
+
+	@Override
+	public long getCachedResults()
+	{
+		return cachedResults.sum();
+	}
+
+	@Override
+	public long getSetBoundsCalls()
+	{
+		return setBoundsCalls.sum();
+	}
+
+	@Override
+	public long getViewsMoved()
+	{
+		return viewsMoved.sum();
+	}
+
+	@Override
+	public long getPanelsSkipped()
+	{
+		return panelsSkipped.sum();
+	}
+
+	@Override
+	public long getEventsWithLayout()
+	{
+		return eventsWithLayout.sum();
+	}
+
+	@Override
+	public long getMaxPassesPerEvent()
+	{
+		return maxPassesPerEvent.get();
+	}
+
+	@Override
+	public double getAveragePassesPerEvent()
+	{
+		long events = eventsWithLayout.sum();
+		return events == 0 ? 0 : (double) passesInEvents.sum() / events;
+	}
+
+	@Override
+	public void reset()
+	{
+		passCount.reset();
+		totalPassTimeNanos.reset();
+		maxPassTimeNanos.reset();
+		viewsLaidOut.reset();
+		constraintsEvaluated.reset();
+		cachedResults.reset();
+		setBoundsCalls.reset();
+		viewsMoved.reset();
+		panelsSkipped.reset();
+		eventsWithLayout.reset();
+		passesInEvents.reset();
+		maxPassesPerEvent.reset();
+	}
+}
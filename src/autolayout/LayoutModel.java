@@ -0,0 +1,161 @@
+package autolayout;
+
+/**
+ * A set of constraints between <code>LayoutNode</code>s, laid out by <code>LayoutEngine</code> without any Swing components.  The root node plays the part of the panel, and every other node is positioned relative to it and to each other.
+ * <p>
+ * Models go through the same compiled plans, caches and solver as Swing views, so they are useful for computing layouts on server threads, such as for report generation, and for measuring the engine without the overhead of AWT.  A model must only be used by one thread at a time, but different models can be laid out on different threads at the same time, each with an engine of its own.
+ * <pre>
+ * LayoutModel model = new LayoutModel(new LayoutNode("page"));
+ * LayoutNode title = new LayoutNode("title");
+ * title.setIntrinsicSize(200, 24);
+ * model.addConstraint(new LayoutConstraint(title, LayoutAttribute.leading, LayoutRelation.equal, model.root(), LayoutAttribute.leading, 1.0, 16));
+ * model.addConstraint(new LayoutConstraint(title, LayoutAttribute.top, LayoutRelation.equal, model.root(), LayoutAttribute.top, 1.0, 16));
+ * model.layout(595, 842);
+ * </pre>
+ */
+@SuppressWarnings("unused")
+public final class LayoutModel
+{
+	private static final LayoutAdapter nodes = new LayoutAdapter()
+	{
+		@Override
+		public int x(Object item)
+		{
+			return ((LayoutNode) item).x;
+		}
+
+		@Override
+		public int y(Object item)
+		{
+			return ((LayoutNode) item).y;
+		}
+
+		@Override
+		public int width(Object item)
+		{
+			return ((LayoutNode) item).width;
+		}
+
+		@Override
+		public int height(Object item)
+		{
+			return ((LayoutNode) item).height;
+		}
+
+		@Override
+		public void preferredSize(Object item, int[] size)
+		{
+			size[0] = ((LayoutNode) item).intrinsicWidth();
+			size[1] = ((LayoutNode) item).intrinsicHeight();
+		}
+
+		/**
+		 * Reading the intrinsic size of a node does not cost anything.
+		 */
+		@Override
+		public boolean preferredSizeMayHaveChanged(Object item)
+		{
+			return true;
+		}
+
+		@Override
+		public void setFrame(Object item, int x, int y, int width, int height)
+		{
+			LayoutNode node = (LayoutNode) item;
+			node.x = x;
+			node.y = y;
+			node.width = width;
+			node.height = height;
+		}
+	};
+
+	private final LayoutNode root;
+	private final ConstraintStore constraints;
+	private final LayoutCache layoutCache = new LayoutCache();
+	private final LayoutEngine engine;
+
+	public LayoutModel(LayoutNode root)
+	{
+		this(root, LayoutEngine.current);
+	}
+
+	/**
+	 * @param engine the engine the model is laid out by, such as one per server thread
+	 */
+	public LayoutModel(LayoutNode root, LayoutEngine engine)
+	{
+		this.root = root;
+		this.constraints = new ConstraintStore(root, layoutCache::constraintValuesDidChange);
+		this.engine = engine;
+	}
+
+	public LayoutNode root()
+	{
+		return root;
+	}
+
+	public void addConstraint(LayoutConstraint constraint)
+	{
+		if (constraints.add(constraint))
+		{
+			layoutCache.invalidate();
+		}
+	}
+
+	public void removeConstraint(LayoutConstraint constraint)
+	{
+		if (constraints.remove(constraint))
+		{
+			layoutCache.invalidate();
+		}
+	}
+
+	/**
+	 * Removes every constraint that references <code>node</code>.
+	 */
+	public void removeNode(LayoutNode node)
+	{
+		if (constraints.removeConstraintsReferencing(node))
+		{
+			layoutCache.invalidate();
+		}
+	}
+
+	public LayoutConstraint[] allConstraints()
+	{
+		return constraints.toArray();
+	}
+
+	/**
+	 * Lays out every node at the current size of the root.
+	 */
+	public void layout()
+	{
+		engine.process(root, layoutCache.isCompiled() ? null : constraints.toArray(), layoutCache, nodes);
+	}
+
+	/**
+	 * Resizes the root and lays out every node.
+	 */
+	public void layout(int width, int height)
+	{
+		root.setSize(width, height);
+		layout();
+	}
+
+	/**
+	 * @return the extent of the nodes after the last layout
+	 */
+	public int calculatedWidth()
+	{
+		return layoutCache.calculatedWidth;
+	}
+
+	/**
+	 * @see #calculatedWidth()
+	 */
+	public int calculatedHeight()
+	{
+		return layoutCache.calculatedHeight;
+	}
+}
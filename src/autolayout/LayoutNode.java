@@ -0,0 +1,82 @@
+package autolayout;
+
+/**
+ * An item laid out by a <code>LayoutModel</code>, standing in for a view without being one.  A node only has a frame and an intrinsic size, so models can be laid out without AWT.
+ * <p>
+ * The intrinsic size plays the part of a view's preferred size: the engine falls back to it for a width or height the constraints do not determine.
+ */
+@SuppressWarnings("unused")
+public final class LayoutNode
+{
+	private final String name;
+	int x = 0;
+	int y = 0;
+	int width = 0;
+	int height = 0;
+	private int intrinsicWidth = 0;
+	private int intrinsicHeight = 0;
+
+	/**
+	 * @param name used to identify the node when its constraints are reported
+	 */
+	public LayoutNode(String name)
+	{
+		this.name = name;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Sets the size of a node that is not laid out by a model, such as the root of one.
+	 */
+	public void setSize(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+	}
+
+	public int intrinsicWidth()
+	{
+		return intrinsicWidth;
+	}
+
+	public int intrinsicHeight()
+	{
+		return intrinsicHeight;
+	}
+
+	public void setIntrinsicSize(int intrinsicWidth, int intrinsicHeight)
+	{
+		this.intrinsicWidth = intrinsicWidth;
+		this.intrinsicHeight = intrinsicHeight;
+	}
+
+	@Override
+	public String toString()
+	{
+		return name + "[x=" + x + ",y=" + y + ",width=" + width + ",height=" + height + "]";
+	}
+}
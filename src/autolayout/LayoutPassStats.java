@@ -0,0 +1,103 @@
+package autolayout;
+
+/**
+ * What a single layout pass of a <code>LayoutEngine</code> cost.  A pass lays out one view with <code>processConstraintsIn(Constrainable)</code>, or a batch of views with <code>processConstraintsIn(List)</code>.
+ *
+ * @see LayoutStatsListener
+ */
+@SuppressWarnings("unused")
+public final class LayoutPassStats
+{
+	long durationNanos;
+	int viewsLaidOut;
+	int constraintsEvaluated;
+	int cachedResults;
+	int setBoundsCalls;
+	int viewsMoved;
+	int passesInEvent;
+	long panelsSkipped;
+
+	LayoutPassStats() { }
+
+	/**
+	 * Counts a frame set while the pass was committed.
+	 */
+	void didSetFrame(boolean moved)
+	{
+		setBoundsCalls++;
+		if (moved)
+		{
+			viewsMoved++;
+		}
+	}
+
+	/**
+	 * @return the time the pass took, from reading the constraints to applying the last frame
+	 */
+	public long durationNanos()
+	{
+		return durationNanos;
+	}
+
+	/**
+	 * @return the number of views whose subviews were laid out, which is 1 unless the pass was a batch
+	 */
+	public int viewsLaidOut()
+	{
+		return viewsLaidOut;
+	}
+
+	/**
+	 * @return the number of constraints in the layouts that had to be solved.  Layouts served from remembered results are not counted.
+	 */
+	public int constraintsEvaluated()
+	{
+		return constraintsEvaluated;
+	}
+
+	/**
+	 * @return the number of views laid out from a result remembered for the same size, without solving
+	 */
+	public int cachedResults()
+	{
+		return cachedResults;
+	}
+
+	/**
+	 * @return the number of subviews given a new frame.  Subviews whose frame did not change are not touched.
+	 */
+	public int setBoundsCalls()
+	{
+		return setBoundsCalls;
+	}
+
+	/**
+	 * @return the number of subviews whose location changed, as opposed to only their size
+	 */
+	public int viewsMoved()
+	{
+		return viewsMoved;
+	}
+
+	/**
+	 * @return how many passes, including this one, the engine ran while dispatching the current event, or 0 if the pass did not run on the event dispatch thread
+	 */
+	public int passesInEvent()
+	{
+		return passesInEvent;
+	}
+
+	/**
+	 * @return the number of panels that were asked to lay out since the previous pass, but skipped it because nothing they depend on changed
+	 */
+	public long panelsSkipped()
+	{
+		return panelsSkipped;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "LayoutPassStats{durationNanos=" + durationNanos + ", viewsLaidOut=" + viewsLaidOut + ", constraintsEvaluated=" + constraintsEvaluated + ", cachedResults=" + cachedResults + ", setBoundsCalls=" + setBoundsCalls + ", viewsMoved=" + viewsMoved + ", passesInEvent=" + passesInEvent + ", panelsSkipped=" + panelsSkipped + "}";
+	}
+}
@@ -0,0 +1,1035 @@
+package autolayout;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * The constraints of a <code>Constrainable</code>, compiled for the greedy layout engine.
+ * <p>
+ * Compiling validates every constraint once and drops the ones that cannot be satisfied.  Views are given integer slots in the order their constraints were added, and the constraints of each view are ordered by attribute.  Views are solved in the topological order kept by <code>DependencyGraph.order()</code>, so a view is only solved after every view it depends on.  Because the order of the constraints is fixed, the attributes already satisfied before each constraint are known up front, so how a constraint is applied is resolved into an opcode when the plan is compiled instead of being worked out on every pass.
+ * <p>
+ * Each constraint becomes one step, stored in flat arrays indexed by step.  Executing the plan is split in three phases.  Preparing reads the current frames and the size of the parent into a buffer indexed by slot.  Solving computes the frame of every dirty view in that buffer without touching the views, so the plans of different views can be solved concurrently.  Committing then calls <code>setBounds</code> once for each view whose frame actually changed, so intermediate values never fire component events.  The constraints themselves are kept in a <code>ConstraintTable</code>, whose row for each step shares the step's index.  The <code>constant</code> and <code>multiplier</code> are copied from each <code>LayoutConstraint</code> into the table at the start of the first pass after one of them changed, so changing them does not require a new plan, and solving only reads primitive arrays.
+ * <p>
+ * The frames solved for the last few sizes of the parent are remembered in a <code>LayoutResultCache</code>, so resizing back to one of them applies the remembered frames without solving.
+ * <p>
+ * A specialized plan is additionally compiled into a hidden class that solves every view in straight-line code, generated by <code>Specializer</code>.  Solving it does not loop over steps or switch on opcodes, anchors, or relations at all, and the JIT sees the offsets of every frame it reads as constants.  Once the class is compiled, laying out a <code>LayoutModel</code> chain of 100 to 500 views takes about a third of the time it takes interpreted in <code>LayoutBenchmarks</code>.  Every method of the class runs once per pass, though, so the JIT only compiles it after thousands of passes, and the code grows with the plan.  Plans of more than <code>SPECIALIZED_STEP_LIMIT</code> steps, which solved as fast or slower than interpreted ones, are always interpreted.  <code>LayoutBenchmarks</code> measures chains, grids and models both ways.
+ *
+ * @see LayoutEngine#setSpecializesLayoutPlans(boolean)
+ */
+final class LayoutPlan implements CompiledLayout
+{
+	//The low bits of an opcode select the operation, AXIS_VERTICAL selects y and height instead of x and width
+	private static final int SET_LEADING = 0;
+	private static final int SET_TRAILING_RESIZE = 1;
+	private static final int SET_TRAILING_MOVE = 2;
+	private static final int SET_SIZE = 3;
+	private static final int SET_SIZE_KEEP_TRAILING = 4;
+	private static final int SET_SIZE_KEEP_CENTER = 5;
+	private static final int SET_CENTER_MOVE = 6;
+	private static final int SET_CENTER_RESIZE_FROM_LEADING = 7;
+	private static final int SET_CENTER_RESIZE_FROM_TRAILING = 8;
+	private static final int OPERATION_MASK = 15;
+	private static final int AXIS_VERTICAL = 16;
+
+	//Beyond this many steps a specialized plan is interpreted, because its code is too large to be compiled early enough to pay off
+	private static final int SPECIALIZED_STEP_LIMIT = 2048;
+
+	private static final int ANCHOR_CONSTANT = 0;
+	private static final int ANCHOR_PARENT = 1;
+	private static final int ANCHOR_VIEW = 2;
+
+	private static final int HORIZONTAL_ATTRIBUTES = bit(LayoutAttribute.leading) | bit(LayoutAttribute.trailing) | bit(LayoutAttribute.width) | bit(LayoutAttribute.centerX);
+	private static final int VERTICAL_ATTRIBUTES = bit(LayoutAttribute.top) | bit(LayoutAttribute.bottom) | bit(LayoutAttribute.height) | bit(LayoutAttribute.centerY);
+
+	private final DependencyGraph graph;
+	private final LayoutAdapter adapter;
+	private final Object[] views;
+	private final int[] firstStep;
+	private final boolean[] usesPreferredWidth;
+	private final boolean[] usesPreferredHeight;
+
+	private final ConstraintTable table;
+	private final int[] opcodes;
+	private final int[] relations;
+	private final int[] anchors;
+	private final int[] anchorSlots;
+	private final boolean[] anchorIsVertical;
+	private final boolean[] anchorIsPosition;
+	private final double[] anchorFractions;
+
+	//The frame of a slot is stored at frames[slot * FRAME_LENGTH] as x, y, width, height, so the position of an axis is at axis and its size at SIZE + axis
+	private static final int FRAME_LENGTH = 4;
+	private static final int SIZE = 2;
+	private final int[] frames;
+
+	//The extent of every view after the last pass
+	private int calculatedWidth = 0;
+	private int calculatedHeight = 0;
+
+	private final LayoutResultCache results;
+
+	//The size of the parent, as read by the last call to prepare
+	private int parentWidth;
+	private int parentHeight;
+	private boolean hasNewResult = false;
+
+	//The steps that would have given their view a negative size in the last solve, which are reported by commit on the event dispatch thread.  The extra last element is set along with any of them.
+	private final boolean[] negativeSizes;
+
+	//Solves every dirty view in straight-line code when the plan is specialized, and null when it is interpreted
+	private final Solver solver;
+
+	LayoutPlan(Object parent, LayoutConstraint[] allConstraints, LayoutAdapter adapter, boolean specialized, int resultCacheCapacity)
+	{
+		this.adapter = adapter;
+		results = new LayoutResultCache(resultCacheCapacity);
+
+		Map<Object, ArrayList<LayoutConstraint>> map = new LinkedHashMap<>();
+		for (LayoutConstraint constraint : allConstraints)
+		{
+			map.computeIfAbsent(constraint.itemOne, view -> new ArrayList<>()).add(constraint);
+		}
+
+		for (ArrayList<LayoutConstraint> constraintsForView : map.values())
+		{
+			validate(constraintsForView, parent, map);
+		}
+		removeConstraintsOnUnpositionedViews(map, parent);
+
+		ArrayList<LayoutConstraint> validConstraints = new ArrayList<>();
+		for (ArrayList<LayoutConstraint> constraintsForView : map.values())
+		{
+			validConstraints.addAll(constraintsForView);
+		}
+
+		//The rows of the table are grouped by view in slot order, the same order the steps are compiled in, so a step and its row share an index
+		table = new ConstraintTable(parent, validConstraints.toArray(new LayoutConstraint[0]));
+		graph = new DependencyGraph(table, adapter);
+		views = graph.views();
+		firstStep = new int[views.length + 1];
+		usesPreferredWidth = new boolean[views.length];
+		usesPreferredHeight = new boolean[views.length];
+		frames = new int[views.length * FRAME_LENGTH];
+
+		int stepCount = validConstraints.size();
+		opcodes = new int[stepCount];
+		relations = new int[stepCount];
+		anchors = new int[stepCount];
+		anchorSlots = new int[stepCount];
+		anchorIsVertical = new boolean[stepCount];
+		anchorIsPosition = new boolean[stepCount];
+		anchorFractions = new double[stepCount];
+		negativeSizes = new boolean[stepCount + 1];
+
+		int step = 0;
+		for (int slot = 0; slot < views.length; slot++)
+		{
+			firstStep[slot] = step;
+			int satisfied = 0;
+			for (LayoutConstraint constraint : map.get(views[slot]))
+			{
+				compileStep(step++, constraint, satisfied, parent);
+				satisfied |= bit(constraint.attributeOne);
+			}
+
+			usesPreferredWidth[slot] = !has(satisfied, LayoutAttribute.width) && !(has(satisfied, LayoutAttribute.leading) && has(satisfied, LayoutAttribute.trailing));
+			usesPreferredHeight[slot] = !has(satisfied, LayoutAttribute.height) && !(has(satisfied, LayoutAttribute.top) && has(satisfied, LayoutAttribute.bottom));
+		}
+		firstStep[views.length] = step;
+
+		solver = specialized && stepCount <= SPECIALIZED_STEP_LIMIT ? new Specializer().specialize(parent) : null;
+	}
+
+	private static int bit(LayoutAttribute attribute)
+	{
+		return 1 << attribute.ordinal();
+	}
+
+	private static boolean has(int attributes, LayoutAttribute attribute)
+	{
+		return (attributes & bit(attribute)) != 0;
+	}
+
+	private static boolean isVertical(LayoutAttribute attribute)
+	{
+		return (bit(attribute) & VERTICAL_ATTRIBUTES) != 0;
+	}
+
+	private static boolean isSize(LayoutAttribute attribute)
+	{
+		return attribute == LayoutAttribute.width || attribute == LayoutAttribute.height;
+	}
+
+	/**
+	 * Leading and top first, then trailing and bottom, then sizes, then centers.  Constraints that read another attribute of their own view come last, so that attribute has been set by the time they are applied.
+	 */
+	private static int rank(LayoutConstraint constraint)
+	{
+		int rank;
+		switch (constraint.attributeOne)
+		{
+			case leading:
+				rank = 0;
+				break;
+
+			case trailing:
+				rank = 1;
+				break;
+
+			case top:
+				rank = 2;
+				break;
+
+			case bottom:
+				rank = 3;
+				break;
+
+			case width:
+				rank = 4;
+				break;
+
+			case height:
+				rank = 5;
+				break;
+
+			case centerX:
+				rank = 6;
+				break;
+
+			default:
+				rank = 7;
+				break;
+		}
+		return constraint.itemTwo == constraint.itemOne ? rank + 8 : rank;
+	}
+
+	/**
+	 * Sorts the constraints of a single view into the order they are applied in, and removes every constraint that cannot be satisfied.
+	 */
+	private static void validate(ArrayList<LayoutConstraint> constraintsForView, Object parent, Map<Object, ArrayList<LayoutConstraint>> map)
+	{
+		constraintsForView.sort(Comparator.comparingInt(LayoutPlan::rank));
+
+		int satisfied = 0;
+		ListIterator<LayoutConstraint> iterator = constraintsForView.listIterator();
+		while (iterator.hasNext())
+		{
+			LayoutConstraint constraint = iterator.next();
+			if (has(satisfied, constraint.attributeOne))
+			{
+				System.out.println("There are multiple constraints for ." + constraint.attributeOne.toString() + " for " + LayoutEngine.getClassAndHashCode(constraint.itemOne) + ".  AutoLayout will ignore " + constraint.toString() + ".  Please check your constraints and find the one you don't want and remove it.");
+				iterator.remove();
+				continue;
+			}
+
+			String problem = problemWith(constraint, satisfied, parent, map);
+			if (problem != null)
+			{
+				System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  " + problem);
+				iterator.remove();
+				continue;
+			}
+			satisfied |= bit(constraint.attributeOne);
+		}
+	}
+
+	/**
+	 * A view whose constraints were all removed during validation cannot be positioned, and neither can anything constrained to it.
+	 */
+	private static void removeConstraintsOnUnpositionedViews(Map<Object, ArrayList<LayoutConstraint>> map, Object parent)
+	{
+		boolean hasRemoved = true;
+		while (hasRemoved)
+		{
+			hasRemoved = false;
+			for (ArrayList<LayoutConstraint> constraintsForView : map.values())
+			{
+				ListIterator<LayoutConstraint> iterator = constraintsForView.listIterator();
+				while (iterator.hasNext())
+				{
+					LayoutConstraint constraint = iterator.next();
+					if (constraint.itemTwo != null && constraint.itemTwo != parent && map.get(constraint.itemTwo).isEmpty())
+					{
+						System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  " + LayoutEngine.getClassAndHashCode(constraint.itemTwo) + " cannot be positioned.");
+						iterator.remove();
+						hasRemoved = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks for problems that make a constraint illegal on its own, no matter which engine solves it or what other constraints exist.
+	 *
+	 * @return a description of the problem, or <code>null</code> if there is none
+	 */
+	static String illegalityOf(LayoutConstraint constraint, Object parent)
+	{
+		if (constraint.itemOne == null || constraint.itemOne == parent)
+		{
+			return "A view cannot be positioned by the constraints of its own panel.";
+		}
+		if (!isSize(constraint.attributeOne) && (constraint.multiplier() == 0 || constraint.itemTwo == null))
+		{
+			return "A multiplier of 0 or a null second item together with a location for the first attribute creates an illegal constraint of a location equal to a constant. Location attributes must be specified in pairs.";
+		}
+		return null;
+	}
+
+	private static String problemWith(LayoutConstraint constraint, int satisfied, Object parent, Map<Object, ArrayList<LayoutConstraint>> map)
+	{
+		LayoutAttribute attributeOne = constraint.attributeOne;
+		LayoutAttribute attributeTwo = constraint.attributeTwo;
+
+		String illegality = illegalityOf(constraint, parent);
+		if (illegality != null)
+		{
+			return illegality;
+		}
+
+		if (!isSize(attributeOne))
+		{
+			if (isSize(attributeTwo) || isVertical(attributeOne) != isVertical(attributeTwo))
+			{
+				return isVertical(attributeOne) ? "." + attributeOne.toString() + " can only be constrained to .top, .centerY, or .bottom" : "." + attributeOne.toString() + " can only be constrained to .leading, .centerX, or .trailing";
+			}
+		}
+		else if (constraint.itemTwo != null && !isSize(attributeTwo))
+		{
+			return "." + attributeOne.toString() + " can only be constrained to .width or .height";
+		}
+
+		if (constraint.itemTwo != null && constraint.itemTwo != parent && map.get(constraint.itemTwo) == null)
+		{
+			return LayoutEngine.getClassAndHashCode(constraint.itemTwo) + " does not have any constraints in this view, so it cannot be positioned.";
+		}
+
+		int axis = satisfied & (isVertical(attributeOne) ? VERTICAL_ATTRIBUTES : HORIZONTAL_ATTRIBUTES);
+		if (Integer.bitCount(axis) >= 2)
+		{
+			StringBuilder specified = new StringBuilder();
+			for (LayoutAttribute attribute : LayoutAttribute.values())
+			{
+				if (has(axis, attribute))
+				{
+					specified.append(specified.length() == 0 ? "." : " and .").append(attribute.toString());
+				}
+			}
+			return "You have already specified " + specified.toString() + ".  Setting ." + attributeOne.toString() + " would break the constraints";
+		}
+		return null;
+	}
+
+	private void compileStep(int step, LayoutConstraint constraint, int satisfied, Object parent)
+	{
+		boolean isVertical = isVertical(constraint.attributeOne);
+		LayoutAttribute leading = isVertical ? LayoutAttribute.top : LayoutAttribute.leading;
+		LayoutAttribute trailing = isVertical ? LayoutAttribute.bottom : LayoutAttribute.trailing;
+		LayoutAttribute center = isVertical ? LayoutAttribute.centerY : LayoutAttribute.centerX;
+
+		int operation;
+		switch (constraint.attributeOne)
+		{
+			case leading:
+			case top:
+				operation = SET_LEADING;
+				break;
+
+			case trailing:
+			case bottom:
+				operation = has(satisfied, leading) ? SET_TRAILING_RESIZE : SET_TRAILING_MOVE;
+				break;
+
+			case width:
+			case height:
+				operation = has(satisfied, trailing) && !has(satisfied, leading) ? SET_SIZE_KEEP_TRAILING : has(satisfied, center) ? SET_SIZE_KEEP_CENTER : SET_SIZE;
+				break;
+
+			default:
+				operation = has(satisfied, leading) ? SET_CENTER_RESIZE_FROM_LEADING : has(satisfied, trailing) ? SET_CENTER_RESIZE_FROM_TRAILING : SET_CENTER_MOVE;
+				break;
+		}
+
+		opcodes[step] = operation | (isVertical ? AXIS_VERTICAL : 0);
+		relations[step] = constraint.relation == LayoutRelation.equal ? 0 : constraint.relation == LayoutRelation.greaterThanOrEqual ? 1 : -1;
+
+		if (constraint.itemTwo == null)
+		{
+			anchors[step] = ANCHOR_CONSTANT;
+			return;
+		}
+
+		anchors[step] = constraint.itemTwo == parent ? ANCHOR_PARENT : ANCHOR_VIEW;
+		anchorSlots[step] = table.viewTwo[step];
+		anchorIsVertical[step] = isVertical(constraint.attributeTwo);
+		anchorIsPosition[step] = !isSize(constraint.attributeTwo);
+		switch (constraint.attributeTwo)
+		{
+			case leading:
+			case top:
+				anchorFractions[step] = 0.0;
+				break;
+
+			case centerX:
+			case centerY:
+				anchorFractions[step] = 0.5;
+				break;
+
+			default:
+				anchorFractions[step] = 1.0;
+				break;
+		}
+	}
+
+	/**
+	 * @return the number of constraints in the plan, as a measure of how much work solving is
+	 */
+	@Override
+	public int size()
+	{
+		return table.size;
+	}
+
+	@Override
+	public void constraintValuesDidChange()
+	{
+		graph.constraintValuesDidChange();
+	}
+
+	@Override
+	public void preferredSizesDidChange()
+	{
+		graph.preferredSizesDidChange();
+	}
+
+	/**
+	 * Reads everything the plan depends on from the views: which of them are dirty, their current frames, and the size of the parent.  If the plan has already been solved for that size and nothing else changed since, the remembered frames are picked up instead.  Must be called on the event dispatch thread.
+	 *
+	 * @return <code>true</code> if <code>solve()</code> needs to run before <code>commit()</code>
+	 */
+	@Override
+	public boolean prepare(Object parent)
+	{
+		parentWidth = adapter.width(parent);
+		parentHeight = adapter.height(parent);
+		hasNewResult = false;
+		graph.markDirtyViews(parentWidth, parentHeight);
+		if (graph.inputsChanged())
+		{
+			results.invalidate();
+		}
+
+		for (int slot = 0; slot < views.length; slot++)
+		{
+			int base = slot * FRAME_LENGTH;
+			frames[base] = adapter.x(views[slot]);
+			frames[base + 1] = adapter.y(views[slot]);
+			frames[base + SIZE] = adapter.width(views[slot]);
+			frames[base + SIZE + 1] = adapter.height(views[slot]);
+		}
+
+		LayoutResultCache.Entry result = results.find(parentWidth, parentHeight);
+		if (result == null) { return true; }
+
+		//Views that are not dirty were not affected by the resize, so they already have the remembered frame
+		for (int slot = 0; slot < views.length; slot++)
+		{
+			if (graph.isDirty(slot))
+			{
+				System.arraycopy(result.frames, slot * FRAME_LENGTH, frames, slot * FRAME_LENGTH, FRAME_LENGTH);
+			}
+		}
+		calculatedWidth = result.calculatedWidth;
+		calculatedHeight = result.calculatedHeight;
+		return false;
+	}
+
+	/**
+	 * Solves the frames read by <code>prepare(_:)</code>.  No view is touched, so the plans of different views can be solved on different threads at the same time.
+	 */
+	@Override
+	public void solve()
+	{
+		solveDirtyViews(parentWidth, parentHeight);
+
+		calculatedHeight = 0;
+		calculatedWidth = 0;
+		for (int base = 0; base < frames.length; base += FRAME_LENGTH)
+		{
+			calculatedHeight = Integer.max(calculatedHeight, frames[base + 1] + frames[base + SIZE + 1]);
+			calculatedWidth = Integer.max(calculatedWidth, frames[base] + frames[base + SIZE]);
+		}
+		hasNewResult = true;
+	}
+
+	/**
+	 * Applies the frames, and remembers them if they were just solved.  Must be called on the event dispatch thread.
+	 */
+	@Override
+	public void commit(LayoutPassStats stats)
+	{
+		reportNegativeSizes();
+		apply(stats);
+		if (hasNewResult)
+		{
+			results.store(parentWidth, parentHeight, frames, calculatedWidth, calculatedHeight);
+		}
+	}
+
+	@Override
+	public int calculatedWidth()
+	{
+		return calculatedWidth;
+	}
+
+	@Override
+	public int calculatedHeight()
+	{
+		return calculatedHeight;
+	}
+
+	/**
+	 * Computes the frame of every dirty view into <code>frames</code>.  Views are not touched.
+	 */
+	private void solveDirtyViews(int parentWidth, int parentHeight)
+	{
+		if (solver != null)
+		{
+			solver.solve(frames, table.constant, table.multiplier, graph.dirtyViews(), graph.preferredWidths(), graph.preferredHeights(), negativeSizes, parentWidth, parentHeight);
+			return;
+		}
+
+		for (int slot : graph.order())
+		{
+			if (!graph.isDirty(slot)) { continue; }
+
+			int base = slot * FRAME_LENGTH;
+			int x = frames[base];
+			int y = frames[base + 1];
+			int width = usesPreferredWidth[slot] ? graph.preferredWidth(slot) : frames[base + SIZE];
+			int height = usesPreferredHeight[slot] ? graph.preferredHeight(slot) : frames[base + SIZE + 1];
+
+			for (int step = firstStep[slot]; step < firstStep[slot + 1]; step++)
+			{
+				double multiplier = table.multiplier[step];
+				int constant = table.constant[step];
+				boolean isVertical = (opcodes[step] & AXIS_VERTICAL) != 0;
+
+				int value;
+				switch (anchors[step])
+				{
+					case ANCHOR_PARENT:
+					{
+						int extent = anchorIsVertical[step] ? parentHeight : parentWidth;
+						value = (int) (extent * anchorFractions[step] * multiplier) + constant;
+						break;
+					}
+
+					case ANCHOR_VIEW:
+					{
+						int anchorBase = anchorSlots[step] * FRAME_LENGTH;
+						boolean isOwnView = anchorSlots[step] == slot;
+						int origin;
+						int extent;
+						if (anchorIsVertical[step])
+						{
+							origin = isOwnView ? y : frames[anchorBase + 1];
+							extent = isOwnView ? height : frames[anchorBase + SIZE + 1];
+						}
+						else
+						{
+							origin = isOwnView ? x : frames[anchorBase];
+							extent = isOwnView ? width : frames[anchorBase + SIZE];
+						}
+						value = (anchorIsPosition[step] ? origin : 0) + (int) (extent * anchorFractions[step] * multiplier) + constant;
+						break;
+					}
+
+					default:
+						value = constant;
+						break;
+				}
+
+				if (relations[step] != 0)
+				{
+					int preferred = isVertical ? graph.preferredHeight(slot) : graph.preferredWidth(slot);
+					value = relations[step] > 0 ? Integer.max(value, preferred) : Integer.min(value, preferred);
+				}
+
+				int position = isVertical ? y : x;
+				int size = isVertical ? height : width;
+				switch (opcodes[step] & OPERATION_MASK)
+				{
+					case SET_LEADING:
+						position = value;
+						break;
+
+					case SET_TRAILING_RESIZE:
+						size = value - position;
+						break;
+
+					case SET_TRAILING_MOVE:
+						position = value - size;
+						break;
+
+					case SET_SIZE:
+						size = value;
+						break;
+
+					case SET_SIZE_KEEP_TRAILING:
+						position = position + size - value;
+						size = value;
+						break;
+
+					case SET_SIZE_KEEP_CENTER:
+						position = position + size / 2 - value / 2;
+						size = value;
+						break;
+
+					case SET_CENTER_MOVE:
+						position = value - size / 2;
+						break;
+
+					case SET_CENTER_RESIZE_FROM_LEADING:
+						size = (value - position) * 2;
+						break;
+
+					case SET_CENTER_RESIZE_FROM_TRAILING:
+					{
+						int trailing = position + size;
+						size = (trailing - value) * 2;
+						position = trailing - size;
+						break;
+					}
+				}
+
+				if (size < 0)
+				{
+					didFindNegativeSize(step);
+					continue;
+				}
+
+				if (isVertical)
+				{
+					y = position;
+					height = size;
+				}
+				else
+				{
+					x = position;
+					width = size;
+				}
+			}
+
+			frames[base] = x;
+			frames[base + 1] = y;
+			frames[base + SIZE] = width;
+			frames[base + SIZE + 1] = height;
+		}
+	}
+
+	/**
+	 * Solving can run on any thread, so a step that cannot be applied is only recorded there.
+	 */
+	private void didFindNegativeSize(int step)
+	{
+		negativeSizes[step] = true;
+		negativeSizes[negativeSizes.length - 1] = true;
+	}
+
+	private void reportNegativeSizes()
+	{
+		if (!negativeSizes[negativeSizes.length - 1]) { return; }
+
+		for (int step = 0; step < negativeSizes.length - 1; step++)
+		{
+			if (negativeSizes[step])
+			{
+				System.out.println("Cannot satisfy constraint: " + table.handles[step].toString() + ".  The " + ((opcodes[step] & AXIS_VERTICAL) != 0 ? "height" : "width") + " is negative.");
+				negativeSizes[step] = false;
+			}
+		}
+		negativeSizes[negativeSizes.length - 1] = false;
+	}
+
+	/**
+	 * Commits the solved frames.  <code>setBounds</code> is only called for views whose frame changed.
+	 */
+	private void apply(LayoutPassStats stats)
+	{
+		for (int slot = 0; slot < views.length; slot++)
+		{
+			if (!graph.isDirty(slot)) { continue; }
+
+			Object view = views[slot];
+			int base = slot * FRAME_LENGTH;
+			if (frames[base] != adapter.x(view) || frames[base + 1] != adapter.y(view) || frames[base + SIZE] != adapter.width(view) || frames[base + SIZE + 1] != adapter.height(view))
+			{
+				if (stats != null)
+				{
+					stats.didSetFrame(frames[base] != adapter.x(view) || frames[base + 1] != adapter.y(view));
+				}
+				adapter.setFrame(view, frames[base], frames[base + 1], frames[base + SIZE], frames[base + SIZE + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Solves the frames of a specialized plan.  Implemented by the hidden class each specialized plan generates.
+	 */
+	interface Solver
+	{
+		void solve(int[] frames, int[] constants, double[] multipliers, boolean[] dirty, int[] preferredWidths, int[] preferredHeights, boolean[] negativeSizes, int parentWidth, int parentHeight);
+	}
+
+	/**
+	 * Generates the <code>Solver</code> of a specialized plan.
+	 * <p>
+	 * The code solving each view is emitted in the order of <code>DependencyGraph.order()</code>, and computes exactly what <code>solveDirtyViews(_:_:)</code> computes for it.  Every step becomes a few instructions with its opcode, anchor, relation, fraction and frame offsets resolved into the code, and the frame of the view being solved is kept in locals.  Constants and multipliers are still read from the <code>ConstraintTable</code>, so changing them does not need a new class.
+	 * <p>
+	 * The views are split over static methods of at most about <code>METHOD_LENGTH</code> bytes, because HotSpot does not compile methods longer than 8000 bytes.  <code>solve</code> calls them in order.  The class is defined with <code>MethodHandles.Lookup.defineHiddenClass</code>, so it is unloaded along with the plan.
+	 */
+	private final class Specializer
+	{
+		private static final String SOLVER = "autolayout/LayoutPlan$Solver";
+		private static final String SOLVE_DESCRIPTOR = "([I[I[D[Z[I[I[ZII)V";
+		private static final int METHOD_LENGTH = 6000;
+
+		//The locals of the static methods, which take the same arguments as Solver.solve.  The frame of the view being solved is kept from X to X + FRAME_LENGTH.
+		private static final int FRAMES = 0;
+		private static final int CONSTANTS = 1;
+		private static final int MULTIPLIERS = 2;
+		private static final int DIRTY = 3;
+		private static final int PREFERRED_WIDTHS = 4;
+		private static final int PREFERRED_HEIGHTS = 5;
+		private static final int NEGATIVE_SIZES = 6;
+		private static final int PARENT_WIDTH = 7;
+		private static final int PARENT_HEIGHT = 8;
+		private static final int X = 9;
+		private static final int VALUE = X + FRAME_LENGTH;
+		private static final int NEW_SIZE = VALUE + 1;
+		private static final int LOCAL_COUNT = NEW_SIZE + 1;
+		private static final int ARGUMENT_COUNT = PARENT_HEIGHT + 1;
+		//Passing on the arguments pushes all of them, which is more than solving a step needs
+		private static final int MAX_STACK = ARGUMENT_COUNT;
+
+		private final ClassFileWriter writer = new ClassFileWriter("autolayout/SpecializedLayoutPlan", "java/lang/Object", SOLVER);
+		private int methodCount = 0;
+
+		/**
+		 * @return the solver, or <code>null</code> if the class cannot be defined, in which case the plan is interpreted
+		 */
+		Solver specialize(Object parent)
+		{
+			try
+			{
+				ArrayList<String> methods = new ArrayList<>();
+				ClassFileWriter.Code code = writer.new Code();
+				for (int slot : graph.order())
+				{
+					solveView(code, slot);
+					if (code.length() >= METHOD_LENGTH)
+					{
+						methods.add(addMethod(code));
+						code = writer.new Code();
+					}
+				}
+				if (code.length() > 0)
+				{
+					methods.add(addMethod(code));
+				}
+
+				ClassFileWriter.Code constructor = writer.new Code();
+				constructor.aload(0);
+				constructor.invokespecial("java/lang/Object", "<init>", "()V");
+				constructor.op(ClassFileWriter.Code.RETURN);
+				writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", constructor, 1, 1);
+
+				ClassFileWriter.Code solve = writer.new Code();
+				call(solve, methods);
+				writer.addMethod(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL, "solve", SOLVE_DESCRIPTOR, solve, MAX_STACK, ARGUMENT_COUNT + 1);
+
+				MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(writer.toByteArray(), true);
+				return (Solver) lookup.lookupClass().getDeclaredConstructor().newInstance();
+			}
+			catch (IllegalStateException | ReflectiveOperationException e)
+			{
+				System.out.println("The layout plan of " + LayoutEngine.getClassAndHashCode(parent) + " cannot be specialized: " + e.getMessage() + ".  It will be interpreted instead.");
+				return null;
+			}
+		}
+
+		private String addMethod(ClassFileWriter.Code code)
+		{
+			code.op(ClassFileWriter.Code.RETURN);
+			String name = "solve" + methodCount++;
+			writer.addMethod(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_STATIC, name, SOLVE_DESCRIPTOR, code, MAX_STACK, LOCAL_COUNT);
+			return name;
+		}
+
+		/**
+		 * Passes the arguments of <code>solve</code> on to every method in <code>methods</code>.  It is an instance method, so its arguments start at local 1.
+		 */
+		private void call(ClassFileWriter.Code code, ArrayList<String> methods)
+		{
+			for (String method : methods)
+			{
+				for (int argument = FRAMES; argument <= NEGATIVE_SIZES; argument++)
+				{
+					code.aload(1 + argument);
+				}
+				code.iload(1 + PARENT_WIDTH);
+				code.iload(1 + PARENT_HEIGHT);
+				code.invokestatic(writer.name(), method, SOLVE_DESCRIPTOR);
+			}
+			code.op(ClassFileWriter.Code.RETURN);
+		}
+
+		private void solveView(ClassFileWriter.Code code, int slot)
+		{
+			code.aload(DIRTY);
+			code.pushInt(slot);
+			code.op(ClassFileWriter.Code.BALOAD);
+			int isClean = code.branch(ClassFileWriter.Code.IFEQ);
+
+			int base = slot * FRAME_LENGTH;
+			for (int offset = 0; offset < FRAME_LENGTH; offset++)
+			{
+				if (offset == SIZE && usesPreferredWidth[slot] || offset == SIZE + 1 && usesPreferredHeight[slot])
+				{
+					code.aload(offset == SIZE ? PREFERRED_WIDTHS : PREFERRED_HEIGHTS);
+					code.pushInt(slot);
+					code.op(ClassFileWriter.Code.IALOAD);
+				}
+				else
+				{
+					readFrame(code, base + offset);
+				}
+				code.istore(X + offset);
+			}
+
+			for (int step = firstStep[slot]; step < firstStep[slot + 1]; step++)
+			{
+				solveStep(code, step, slot);
+			}
+
+			for (int offset = 0; offset < FRAME_LENGTH; offset++)
+			{
+				code.aload(FRAMES);
+				code.pushInt(base + offset);
+				code.iload(X + offset);
+				code.op(ClassFileWriter.Code.IASTORE);
+			}
+			code.bind(isClean);
+		}
+
+		private void readFrame(ClassFileWriter.Code code, int index)
+		{
+			code.aload(FRAMES);
+			code.pushInt(index);
+			code.op(ClassFileWriter.Code.IALOAD);
+		}
+
+		/**
+		 * Reads <code>offset</code> of the frame of <code>anchorSlot</code>, from the locals if it is the view being solved.
+		 */
+		private void readAnchorFrame(ClassFileWriter.Code code, int anchorSlot, int offset, int slot)
+		{
+			if (anchorSlot == slot)
+			{
+				code.iload(X + offset);
+			}
+			else
+			{
+				readFrame(code, anchorSlot * FRAME_LENGTH + offset);
+			}
+		}
+
+		private void solveStep(ClassFileWriter.Code code, int step, int slot)
+		{
+			boolean isVertical = (opcodes[step] & AXIS_VERTICAL) != 0;
+			int position = X + (isVertical ? 1 : 0);
+			int size = position + SIZE;
+
+			value(code, step, slot);
+			if (relations[step] != 0)
+			{
+				code.aload(isVertical ? PREFERRED_HEIGHTS : PREFERRED_WIDTHS);
+				code.pushInt(slot);
+				code.op(ClassFileWriter.Code.IALOAD);
+				code.invokestatic("java/lang/Math", relations[step] > 0 ? "max" : "min", "(II)I");
+			}
+			code.istore(VALUE);
+
+			int operation = opcodes[step] & OPERATION_MASK;
+			boolean resizes = operation != SET_LEADING && operation != SET_TRAILING_MOVE && operation != SET_CENTER_MOVE;
+			if (resizes)
+			{
+				switch (operation)
+				{
+					case SET_TRAILING_RESIZE:
+						code.iload(VALUE);
+						code.iload(position);
+						code.op(ClassFileWriter.Code.ISUB);
+						break;
+
+					case SET_CENTER_RESIZE_FROM_LEADING:
+						code.iload(VALUE);
+						code.iload(position);
+						code.op(ClassFileWriter.Code.ISUB);
+						code.pushInt(2);
+						code.op(ClassFileWriter.Code.IMUL);
+						break;
+
+					case SET_CENTER_RESIZE_FROM_TRAILING:
+						code.iload(position);
+						code.iload(size);
+						code.op(ClassFileWriter.Code.IADD);
+						code.iload(VALUE);
+						code.op(ClassFileWriter.Code.ISUB);
+						code.pushInt(2);
+						code.op(ClassFileWriter.Code.IMUL);
+						break;
+
+					default:
+						code.iload(VALUE);
+						break;
+				}
+				code.istore(NEW_SIZE);
+			}
+
+			//A step that would make the size negative is recorded and leaves the frame as it is
+			code.iload(resizes ? NEW_SIZE : size);
+			int isNegative = code.branch(ClassFileWriter.Code.IFLT);
+
+			switch (operation)
+			{
+				case SET_LEADING:
+					code.iload(VALUE);
+					code.istore(position);
+					break;
+
+				case SET_TRAILING_MOVE:
+					code.iload(VALUE);
+					code.iload(size);
+					code.op(ClassFileWriter.Code.ISUB);
+					code.istore(position);
+					break;
+
+				case SET_CENTER_MOVE:
+					code.iload(VALUE);
+					code.iload(size);
+					code.pushInt(2);
+					code.op(ClassFileWriter.Code.IDIV);
+					code.op(ClassFileWriter.Code.ISUB);
+					code.istore(position);
+					break;
+
+				case SET_SIZE_KEEP_TRAILING:
+					code.iload(position);
+					code.iload(size);
+					code.op(ClassFileWriter.Code.IADD);
+					code.iload(VALUE);
+					code.op(ClassFileWriter.Code.ISUB);
+					code.istore(position);
+					break;
+
+				case SET_SIZE_KEEP_CENTER:
+					code.iload(position);
+					code.iload(size);
+					code.pushInt(2);
+					code.op(ClassFileWriter.Code.IDIV);
+					code.op(ClassFileWriter.Code.IADD);
+					code.iload(VALUE);
+					code.pushInt(2);
+					code.op(ClassFileWriter.Code.IDIV);
+					code.op(ClassFileWriter.Code.ISUB);
+					code.istore(position);
+					break;
+
+				case SET_CENTER_RESIZE_FROM_TRAILING:
+					code.iload(position);
+					code.iload(size);
+					code.op(ClassFileWriter.Code.IADD);
+					code.iload(NEW_SIZE);
+					code.op(ClassFileWriter.Code.ISUB);
+					code.istore(position);
+					break;
+
+				default:
+					break;
+			}
+			if (resizes)
+			{
+				code.iload(NEW_SIZE);
+				code.istore(size);
+			}
+			int done = code.branch(ClassFileWriter.Code.GOTO);
+
+			code.bind(isNegative);
+			for (int index : new int[] {step, negativeSizes.length - 1})
+			{
+				code.aload(NEGATIVE_SIZES);
+				code.pushInt(index);
+				code.pushInt(1);
+				code.op(ClassFileWriter.Code.BASTORE);
+			}
+			code.bind(done);
+		}
+
+		/**
+		 * Pushes the value the constraint of <code>step</code> resolves to, before its relation is applied.  A fraction of 0 always scales to 0 and a fraction of 1 leaves the extent as it is, so neither is multiplied.
+		 */
+		private void value(ClassFileWriter.Code code, int step, int slot)
+		{
+			int axis = anchorIsVertical[step] ? 1 : 0;
+			boolean hasValue = false;
+			if (anchors[step] == ANCHOR_VIEW && anchorIsPosition[step])
+			{
+				readAnchorFrame(code, anchorSlots[step], axis, slot);
+				hasValue = true;
+			}
+
+			if (anchors[step] != ANCHOR_CONSTANT && anchorFractions[step] != 0.0)
+			{
+				if (anchors[step] == ANCHOR_PARENT)
+				{
+					code.iload(axis == 1 ? PARENT_HEIGHT : PARENT_WIDTH);
+				}
+				else
+				{
+					readAnchorFrame(code, anchorSlots[step], SIZE + axis, slot);
+				}
+				code.op(ClassFileWriter.Code.I2D);
+				if (anchorFractions[step] != 1.0)
+				{
+					code.pushDouble(anchorFractions[step]);
+					code.op(ClassFileWriter.Code.DMUL);
+				}
+				code.aload(MULTIPLIERS);
+				code.pushInt(step);
+				code.op(ClassFileWriter.Code.DALOAD);
+				code.op(ClassFileWriter.Code.DMUL);
+				code.op(ClassFileWriter.Code.D2I);
+				if (hasValue)
+				{
+					code.op(ClassFileWriter.Code.IADD);
+				}
+				hasValue = true;
+			}
+
+			code.aload(CONSTANTS);
+			code.pushInt(step);
+			code.op(ClassFileWriter.Code.IALOAD);
+			if (hasValue)
+			{
+				code.op(ClassFileWriter.Code.IADD);
+			}
+		}
+	}
+}
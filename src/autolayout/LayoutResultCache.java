@@ -0,0 +1,116 @@
+package autolayout;
+
+/**
+ * Remembers the frames a layout produced for the last few sizes of the parent, so resizing back and forth between the same sizes applies the remembered frames instead of solving again.
+ * <p>
+ * Results are keyed by <code>(version, parent width, parent height)</code>.  The owner calls <code>invalidate()</code> whenever anything other than the size of the parent changes what the layout would produce, such as the <code>constant</code> or <code>multiplier</code> of a constraint, or the preferred size of a view.  That bumps the version, so results solved before the change can never be served.  Adding or removing a constraint discards the whole plan, and the cache along with it.
+ * <p>
+ * The cache is a small least recently used list.  Entries are allocated once, and an evicted entry's frame buffer is reused for the next result, so a steady stream of new sizes, such as a live window drag, does not allocate.
+ */
+final class LayoutResultCache
+{
+	/**
+	 * The number of results kept for each plan unless <code>LayoutEngine</code> is told otherwise.
+	 */
+	static final int DEFAULT_CAPACITY = 8;
+
+	/**
+	 * A remembered result.  <code>frames</code> is laid out the same way as the owner's own frame buffer.
+	 */
+	static final class Entry
+	{
+		private int version;
+		int width;
+		int height;
+		int[] frames;
+		int calculatedWidth;
+		int calculatedHeight;
+		private long lastUsed;
+
+		private Entry(int frameCount)
+		{
+			frames = new int[frameCount];
+		}
+	}
+
+	private final Entry[] entries;
+	private int count = 0;
+	private long clock = 0;
+	private int version = 0;
+
+	/**
+	 * @param capacity the number of results kept.  A capacity of 0 disables the cache.
+	 */
+	LayoutResultCache(int capacity)
+	{
+		entries = new Entry[Math.max(0, capacity)];
+	}
+
+	/**
+	 * Bumps the version, so every result remembered so far becomes stale.  Stale results are never returned, and are the first to be evicted, since they were all used before any result of the new version.
+	 */
+	void invalidate()
+	{
+		version++;
+	}
+
+	/**
+	 * @return the result for a parent of the given size at the current version, or <code>null</code> if there is none
+	 */
+	Entry find(int width, int height)
+	{
+		for (int index = 0; index < count; index++)
+		{
+			Entry entry = entries[index];
+			if (entry.version == version && entry.width == width && entry.height == height)
+			{
+				entry.lastUsed = ++clock;
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Remembers a result for a parent of the given size at the current version.
+	 *
+	 * @param frames the solved frames, which are copied
+	 */
+	void store(int width, int height, int[] frames, int calculatedWidth, int calculatedHeight)
+	{
+		if (entries.length == 0) { return; }
+
+		Entry entry;
+		if (count < entries.length)
+		{
+			if (entries[count] == null)
+			{
+				entries[count] = new Entry(frames.length);
+			}
+			entry = entries[count++];
+		}
+		else
+		{
+			entry = entries[0];
+			for (int index = 1; index < count; index++)
+			{
+				if (entries[index].lastUsed < entry.lastUsed)
+				{
+					entry = entries[index];
+				}
+			}
+		}
+
+		if (entry.frames.length != frames.length)
+		{
+			entry.frames = new int[frames.length];
+		}
+		System.arraycopy(frames, 0, entry.frames, 0, frames.length);
+		entry.version = version;
+		entry.width = width;
+		entry.height = height;
+		entry.calculatedWidth = calculatedWidth;
+		entry.calculatedHeight = calculatedHeight;
+		entry.lastUsed = ++clock;
+	}
+}
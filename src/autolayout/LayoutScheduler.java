@@ -0,0 +1,62 @@
+package autolayout;
+
+import javax.swing.*;
+
+/**
+ * Coalesces layout requests so that a storm of events, such as the resize events of a live window drag, results in at most one layout pass per display frame.
+ * <p>
+ * <code>setNeedsLayout()</code> only marks the layout as dirty and starts a single-shot <code>javax.swing.Timer</code> if one is not already pending.  When the timer fires on the event dispatch thread, the layout pass runs once, no matter how many requests were made in between.  <code>layoutIfNeeded()</code> runs a pending pass right away.
+ * <p>
+ * Like the rest of Swing, a scheduler must only be used from the event dispatch thread.
+ */
+public final class LayoutScheduler
+{
+	/**
+	 * The delay between the first request and the layout pass, about one frame at 60 frames per second.
+	 */
+	public static final int FRAME_INTERVAL = 16;
+
+	private final Runnable layoutPass;
+	private final Timer timer;
+	private boolean needsLayout = false;
+
+	/**
+	 * @param layoutPass the layout pass to run, at most once per frame
+	 */
+	public LayoutScheduler(Runnable layoutPass)
+	{
+		this.layoutPass = layoutPass;
+		timer = new Timer(FRAME_INTERVAL, event -> layoutIfNeeded());
+		timer.setRepeats(false);
+		timer.setCoalesce(true);
+	}
+
+	/**
+	 * Marks the layout as dirty.  The layout pass will run once, within a frame, unless <code>layoutIfNeeded()</code> runs it sooner.
+	 */
+	public void setNeedsLayout()
+	{
+		needsLayout = true;
+		if (!timer.isRunning())
+		{
+			timer.start();
+		}
+	}
+
+	public boolean needsLayout()
+	{
+		return needsLayout;
+	}
+
+	/**
+	 * Runs the layout pass right away if one is pending.  Does nothing otherwise.
+	 */
+	public void layoutIfNeeded()
+	{
+		timer.stop();
+		if (!needsLayout) { return; }
+
+		needsLayout = false;
+		layoutPass.run();
+	}
+}
@@ -0,0 +1,14 @@
+package autolayout;
+
+/**
+ * Told about every layout pass of the <code>LayoutEngine</code> it is added to.
+ * <p>
+ * Listeners are called on the thread that ran the pass, which for Swing views is the event dispatch thread, so they should only record what they are given.  An engine without listeners does not measure its passes at all.
+ *
+ * @see LayoutEngine#addLayoutStatsListener(LayoutStatsListener)
+ */
+@FunctionalInterface
+public interface LayoutStatsListener
+{
+	void layoutPassFinished(LayoutEngine engine, LayoutPassStats stats);
+}
@@ -0,0 +1,505 @@
+package autolayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translates the constraints of a <code>Constrainable</code> into a <code>SimplexSolver</code> tableau, and keeps that tableau warm between layout passes.
+ * <p>
+ * Every view is described by four variables: its leading edge, top edge, width, and height.  The parent view is fixed at the origin, and its width and height are edit variables.  On a resize only those two edit variables are suggested new values, which the solver resolves with a few dual simplex pivots.
+ * <p>
+ * The frames solved for the last few sizes of the parent are remembered in a <code>LayoutResultCache</code>, so resizing back to one of them applies the remembered frames without touching the solver.  The tableau is left at the last size it solved, and the next size it is asked for is reached from there.
+ * <p>
+ * Each constraint is mapped using the equation documented in <code>LayoutConstraint</code>: <code>item1.attribute1 = multiplier × item2.attribute2 + constant</code>.  Constraints with a priority lower than 1000 are optional, and the preferred size of a view is honored with a low priority, the same way the greedy engine falls back to it.
+ * <p>
+ * A layout made by <code>fitting(_:_:_:)</code> is never committed.  Its parent is only weakly held at a size of 0, so solving it finds the smallest size of the parent that fits every view at its intrinsic size, for <code>fittingSize(_:_:)</code>.
+ */
+final class SimplexLayout implements CompiledLayout
+{
+	//The strongest optional strength.  Optional constraints are weighted per pixel of error, so with STRONG a handful of views whose preferred size conflicts with their edges would outweigh the size of the parent
+	private static final double PARENT_STRENGTH = SimplexSolver.strength(1000.0, 0.0, 0.0);
+	private static final int INTRINSIC_SIZE_PRIORITY = 250;
+
+	private final double parentStrength;
+	private final boolean isFitting;
+
+	private final SimplexSolver.Variable parentWidth = new SimplexSolver.Variable("parent.width");
+	private final SimplexSolver.Variable parentHeight = new SimplexSolver.Variable("parent.height");
+	private final Map<Object, ViewVariables> views = new LinkedHashMap<>();
+	private ViewVariables[] viewList = new ViewVariables[0];
+	private SimplexSolver solver;
+
+	private final LayoutConstraint[] source;
+	private final SimplexSolver.Constraint[] mapped;
+	private final boolean[] unsatisfiable;
+	private final double[] multipliers;
+	private final int[] constants;
+	private boolean needsRebuild = false;
+	//Set when the constant or multiplier of a constraint changed, so update only compares them with the tableau after a change
+	private boolean constraintValuesChanged = false;
+	//Set when the views are new or their preferred sizes may have changed without the adapter reporting it
+	private boolean readsEveryPreferredSize = true;
+	private final LayoutResultCache results;
+	private int[] frames = new int[0];
+	private final LayoutAdapter adapter;
+	private final int[] preferredSize = new int[2];
+
+	//The parent and its size, as read by the last call to prepare
+	private Object parent;
+	private int width;
+	private int height;
+	private boolean hasNewResult = false;
+	//Whether the last solve could not give the parent its actual size, which is reported by commit on the event dispatch thread
+	private boolean conflictsWithSize = false;
+
+	//The extent of every view after the last pass
+	private int calculatedWidth = 0;
+	private int calculatedHeight = 0;
+
+	SimplexLayout(Object parent, LayoutConstraint[] constraints, LayoutAdapter adapter, int resultCacheCapacity)
+	{
+		this(parent, constraints, adapter, resultCacheCapacity, false);
+	}
+
+	private SimplexLayout(Object parent, LayoutConstraint[] constraints, LayoutAdapter adapter, int resultCacheCapacity, boolean isFitting)
+	{
+		this.adapter = adapter;
+		this.isFitting = isFitting;
+		parentStrength = isFitting ? SimplexSolver.WEAK : PARENT_STRENGTH;
+		results = new LayoutResultCache(resultCacheCapacity);
+		source = constraints;
+		mapped = new SimplexSolver.Constraint[constraints.length];
+		unsatisfiable = new boolean[constraints.length];
+		multipliers = new double[constraints.length];
+		constants = new int[constraints.length];
+
+		rebuild(parent);
+	}
+
+	/**
+	 * Makes a layout for <code>fittingSize(_:_:)</code>.  Problems with the constraints are not reported, as the layout that lays them out already reports them.
+	 *
+	 * @param adapter reads the intrinsic size the views are fitted at as their preferred size
+	 */
+	static SimplexLayout fitting(Object parent, LayoutConstraint[] constraints, LayoutAdapter adapter)
+	{
+		return new SimplexLayout(parent, constraints, adapter, 0, true);
+	}
+
+	static double strengthFor(int priority)
+	{
+		if (priority >= 1000)
+		{
+			return SimplexSolver.REQUIRED;
+		}
+		return SimplexSolver.MEDIUM * Math.max(1, priority);
+	}
+
+	/**
+	 * @return the number of constraints, as a measure of how much work solving is
+	 */
+	@Override
+	public int size()
+	{
+		return source.length;
+	}
+
+	@Override
+	public void constraintValuesDidChange()
+	{
+		constraintValuesChanged = true;
+	}
+
+	@Override
+	public void preferredSizesDidChange()
+	{
+		readsEveryPreferredSize = true;
+	}
+
+	/**
+	 * Brings the tableau up to date with the constraints and the preferred sizes of the views, and picks up a remembered result if there is one.  Must be called on the event dispatch thread.
+	 *
+	 * @return <code>true</code> if <code>solve()</code> needs to run before <code>commit()</code>
+	 */
+	@Override
+	public boolean prepare(Object parent)
+	{
+		update(parent);
+
+		this.parent = parent;
+		width = adapter.width(parent);
+		height = adapter.height(parent);
+		hasNewResult = false;
+
+		LayoutResultCache.Entry result = results.find(width, height);
+		if (result == null) { return true; }
+
+		System.arraycopy(result.frames, 0, frames, 0, frames.length);
+		calculatedWidth = result.calculatedWidth;
+		calculatedHeight = result.calculatedHeight;
+		return false;
+	}
+
+	/**
+	 * Solves for the smallest size of the parent that fits every view at the intrinsic size read by the adapter, the same way <code>prepare(_:)</code> and <code>solve()</code> would, but without reading or touching the size of any item.  Must be called on the event dispatch thread, on a layout made by <code>fitting(_:_:_:)</code>.
+	 *
+	 * @param size receives the width and the height of the parent, which is also at least the extent of every view
+	 */
+	void fittingSize(Object parent, int[] size)
+	{
+		update(parent);
+		solver.suggestValue(parentWidth, 0);
+		solver.suggestValue(parentHeight, 0);
+		solver.updateVariables();
+
+		size[0] = (int) Math.round(parentWidth.value);
+		size[1] = (int) Math.round(parentHeight.value);
+		for (ViewVariables variables : viewList)
+		{
+			size[0] = Math.max(size[0], (int) Math.round(variables.leading.value + variables.width.value));
+			size[1] = Math.max(size[1], (int) Math.round(variables.top.value + variables.height.value));
+		}
+	}
+
+	/**
+	 * Brings the tableau up to date with the constants and multipliers of the constraints, if any of them changed, and the preferred sizes of the views that may have changed.
+	 */
+	private void update(Object parent)
+	{
+		if (constraintValuesChanged)
+		{
+			constraintValuesChanged = false;
+			for (int index = 0; index < source.length && !needsRebuild; index++)
+			{
+				if (source[index].constant() != constants[index] || source[index].multiplier() != multipliers[index])
+				{
+					if (mapped[index] != null)
+					{
+						solver.removeConstraint(mapped[index]);
+					}
+					unsatisfiable[index] = false;
+					add(index, parent);
+					results.invalidate();
+				}
+			}
+		}
+		if (needsRebuild)
+		{
+			rebuild(parent);
+		}
+
+		if (viewList.length != views.size())
+		{
+			viewList = views.values().toArray(new ViewVariables[0]);
+			results.invalidate();
+		}
+
+		//A fitting layout is only solved when Swing asks for the size of its parent, which is not once per pass, so it reads every preferred size
+		boolean readsEvery = readsEveryPreferredSize || isFitting;
+		readsEveryPreferredSize = false;
+		for (ViewVariables variables : viewList)
+		{
+			if (!readsEvery && !adapter.preferredSizeMayHaveChanged(variables.view)) { continue; }
+
+			adapter.preferredSize(variables.view, preferredSize);
+			if (preferredSize[0] != variables.preferredWidth || preferredSize[1] != variables.preferredHeight)
+			{
+				variables.preferredWidth = preferredSize[0];
+				variables.preferredHeight = preferredSize[1];
+				variables.intrinsicWidth = updateIntrinsicSize(variables.width, variables.intrinsicWidth, preferredSize[0]);
+				variables.intrinsicHeight = updateIntrinsicSize(variables.height, variables.intrinsicHeight, preferredSize[1]);
+				results.invalidate();
+			}
+		}
+
+		if (frames.length != viewList.length * 4)
+		{
+			frames = new int[viewList.length * 4];
+		}
+	}
+
+	/**
+	 * Solves for the size of the parent read by <code>prepare(_:)</code>.  Only the tableau and the frame buffer are touched, so the layouts of different views can be solved on different threads at the same time.
+	 */
+	@Override
+	public void solve()
+	{
+		solver.suggestValue(parentWidth, width);
+		solver.suggestValue(parentHeight, height);
+		solver.updateVariables();
+
+		conflictsWithSize = Math.abs(parentWidth.value - width) >= 0.5 || Math.abs(parentHeight.value - height) >= 0.5;
+
+		calculatedHeight = 0;
+		calculatedWidth = 0;
+		for (int index = 0; index < viewList.length; index++)
+		{
+			ViewVariables variables = viewList[index];
+			int x = (int) Math.round(variables.leading.value);
+			int y = (int) Math.round(variables.top.value);
+			int viewWidth = (int) Math.round(variables.width.value);
+			int viewHeight = (int) Math.round(variables.height.value);
+			frames[index * 4] = x;
+			frames[index * 4 + 1] = y;
+			frames[index * 4 + 2] = viewWidth;
+			frames[index * 4 + 3] = viewHeight;
+
+			calculatedHeight = Math.max(calculatedHeight, y + viewHeight);
+			calculatedWidth = Math.max(calculatedWidth, x + viewWidth);
+		}
+		hasNewResult = true;
+	}
+
+	/**
+	 * Sets the bounds of every view to its entry in <code>frames</code>, stored as x, y, width, height in the order of <code>viewList</code>, and remembers the result if it was just solved.  <code>setBounds</code> is only called for views whose frame changed.  Must be called on the event dispatch thread.
+	 */
+	@Override
+	public void commit(LayoutPassStats stats)
+	{
+		if (hasNewResult)
+		{
+			results.store(width, height, frames, calculatedWidth, calculatedHeight);
+			if (conflictsWithSize)
+			{
+				System.out.println("The constraints in " + LayoutEngine.getClassAndHashCode(parent) + " require a size of " + Math.round(parentWidth.value) + "x" + Math.round(parentHeight.value) + ", which conflicts with its actual size of " + width + "x" + height + ".  Please check your constraints.");
+			}
+		}
+
+		for (int index = 0; index < viewList.length; index++)
+		{
+			Object view = viewList[index].view;
+			int base = index * 4;
+			if (frames[base] != adapter.x(view) || frames[base + 1] != adapter.y(view) || frames[base + 2] != adapter.width(view) || frames[base + 3] != adapter.height(view))
+			{
+				if (stats != null)
+				{
+					stats.didSetFrame(frames[base] != adapter.x(view) || frames[base + 1] != adapter.y(view));
+				}
+				adapter.setFrame(view, frames[base], frames[base + 1], frames[base + 2], frames[base + 3]);
+			}
+		}
+	}
+
+	@Override
+	public int calculatedWidth()
+	{
+		return calculatedWidth;
+	}
+
+	@Override
+	public int calculatedHeight()
+	{
+		return calculatedHeight;
+	}
+
+	/**
+	 * Starts over with a fresh tableau.  A required constraint that failed to be added can leave the tableau inconsistent, so the solver is rebuilt without it.
+	 */
+	private void rebuild(Object parent)
+	{
+		do
+		{
+			needsRebuild = false;
+			solver = new SimplexSolver();
+			views.clear();
+			solver.addEditVariable(parentWidth, parentStrength);
+			solver.addEditVariable(parentHeight, parentStrength);
+
+			for (int index = 0; index < source.length && !needsRebuild; index++)
+			{
+				if (!unsatisfiable[index])
+				{
+					add(index, parent);
+				}
+			}
+		}
+		while (needsRebuild);
+		viewList = views.values().toArray(new ViewVariables[0]);
+		readsEveryPreferredSize = true;
+	}
+
+	private void add(int index, Object parent)
+	{
+		LayoutConstraint constraint = source[index];
+		constants[index] = constraint.constant();
+		multipliers[index] = constraint.multiplier();
+		mapped[index] = null;
+
+		//A multiplier can be changed to 0 after the constraint was added, so this is checked again on every add
+		String illegality = LayoutPlan.illegalityOf(constraint, parent);
+		if (illegality != null)
+		{
+			if (!isFitting)
+			{
+				System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  " + illegality);
+			}
+			return;
+		}
+
+		SimplexSolver.Constraint linear = new SimplexSolver.Constraint(relationFor(constraint.relation), strengthFor(constraint.priority), -constraint.constant());
+		addAttribute(linear, constraint.itemOne, constraint.attributeOne, 1.0, parent);
+		if (constraint.itemTwo != null)
+		{
+			addAttribute(linear, constraint.itemTwo, constraint.attributeTwo, -constraint.multiplier(), parent);
+		}
+
+		if (!solver.addConstraint(linear))
+		{
+			if (!isFitting)
+			{
+				System.out.println("Cannot satisfy constraint: " + constraint.toString() + ".  It conflicts with other required constraints.");
+			}
+			unsatisfiable[index] = true;
+			needsRebuild = true;
+			return;
+		}
+		mapped[index] = linear;
+	}
+
+	private void addAttribute(SimplexSolver.Constraint linear, Object view, LayoutAttribute attribute, double coefficient, Object parent)
+	{
+		if (view == parent)
+		{
+			switch (attribute)
+			{
+				case trailing:
+				case width:
+					linear.addTerm(parentWidth, coefficient);
+					break;
+
+				case centerX:
+					linear.addTerm(parentWidth, coefficient / 2.0);
+					break;
+
+				case bottom:
+				case height:
+					linear.addTerm(parentHeight, coefficient);
+					break;
+
+				case centerY:
+					linear.addTerm(parentHeight, coefficient / 2.0);
+					break;
+
+				default:
+					break;
+			}
+			return;
+		}
+
+		ViewVariables variables = variablesFor(view);
+		switch (attribute)
+		{
+			case leading:
+				linear.addTerm(variables.leading, coefficient);
+				break;
+
+			case trailing:
+				linear.addTerm(variables.leading, coefficient);
+				linear.addTerm(variables.width, coefficient);
+				break;
+
+			case centerX:
+				linear.addTerm(variables.leading, coefficient);
+				linear.addTerm(variables.width, coefficient / 2.0);
+				break;
+
+			case width:
+				linear.addTerm(variables.width, coefficient);
+				break;
+
+			case top:
+				linear.addTerm(variables.top, coefficient);
+				break;
+
+			case bottom:
+				linear.addTerm(variables.top, coefficient);
+				linear.addTerm(variables.height, coefficient);
+				break;
+
+			case centerY:
+				linear.addTerm(variables.top, coefficient);
+				linear.addTerm(variables.height, coefficient / 2.0);
+				break;
+
+			case height:
+				linear.addTerm(variables.height, coefficient);
+				break;
+		}
+	}
+
+	private ViewVariables variablesFor(Object view)
+	{
+		ViewVariables variables = views.get(view);
+		if (variables == null)
+		{
+			variables = new ViewVariables(view);
+			views.put(view, variables);
+			solver.addConstraint(new SimplexSolver.Constraint(SimplexSolver.Relation.greaterThanOrEqual, SimplexSolver.REQUIRED, 0.0).addTerm(variables.width, 1.0));
+			solver.addConstraint(new SimplexSolver.Constraint(SimplexSolver.Relation.greaterThanOrEqual, SimplexSolver.REQUIRED, 0.0).addTerm(variables.height, 1.0));
+		}
+		return variables;
+	}
+
+	/**
+	 * Suggests the preferred size of a view to the solver.  Views reporting a preferred size of <code>Integer.MAX_VALUE</code>, like <code>ALJPanel</code>, have no intrinsic size and are sized by their constraints alone.
+	 *
+	 * @return whether the variable is now an edit variable
+	 */
+	private boolean updateIntrinsicSize(SimplexSolver.Variable variable, boolean isEditable, int preferredSize)
+	{
+		boolean hasIntrinsicSize = preferredSize >= 0 && preferredSize < Integer.MAX_VALUE / 2;
+		if (!hasIntrinsicSize)
+		{
+			if (isEditable)
+			{
+				solver.removeEditVariable(variable);
+			}
+			return false;
+		}
+
+		if (!isEditable)
+		{
+			solver.addEditVariable(variable, strengthFor(INTRINSIC_SIZE_PRIORITY));
+		}
+		solver.suggestValue(variable, preferredSize);
+		return true;
+	}
+
+	private static SimplexSolver.Relation relationFor(LayoutRelation relation)
+	{
+		switch (relation)
+		{
+			case lessThanOrEqual:
+				return SimplexSolver.Relation.lessThanOrEqual;
+
+			case greaterThanOrEqual:
+				return SimplexSolver.Relation.greaterThanOrEqual;
+
+			default:
+				return SimplexSolver.Relation.equal;
+		}
+	}
+
+	private static final class ViewVariables
+	{
+		final Object view;
+		final SimplexSolver.Variable leading;
+		final SimplexSolver.Variable top;
+		final SimplexSolver.Variable width;
+		final SimplexSolver.Variable height;
+		boolean intrinsicWidth = false;
+		boolean intrinsicHeight = false;
+		int preferredWidth = -1;
+		int preferredHeight = -1;
+
+		ViewVariables(Object view)
+		{
+			String name = LayoutEngine.getClassAndHashCode(view);
+			this.view = view;
+			this.leading = new SimplexSolver.Variable(name + ".leading");
+			this.top = new SimplexSolver.Variable(name + ".top");
+			this.width = new SimplexSolver.Variable(name + ".width");
+			this.height = new SimplexSolver.Variable(name + ".height");
+		}
+	}
+}
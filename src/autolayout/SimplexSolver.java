@@ -0,0 +1,859 @@
+package autolayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An incremental implementation of the Cassowary linear arithmetic constraint solving algorithm.
+ * <p>
+ * The solver keeps its simplex tableau between calls.  Constraints may be added and removed one at a time, and edit variables may be suggested new values, which is resolved with a handful of dual simplex pivots instead of rebuilding the system.
+ * <p>
+ * Each constraint is expressed as <code>expression (relation) 0</code>, where the expression is a linear combination of <code>Variable</code>s plus a constant.  Constraints with a strength lower than <code>REQUIRED</code> may be left unsatisfied, and the solver will minimize the weighted error of all such constraints.
+ * <p>
+ * Rows keep their cells in primitive arrays, and each basic symbol holds its own row, so suggesting values and the pivots that follow do not allocate once the rows have grown to their working size.
+ * <p>
+ * This class is used by <code>LayoutEngine</code> and is not meant to be used directly.
+ */
+@SuppressWarnings("WeakerAccess")
+final class SimplexSolver
+{
+	static final double REQUIRED = strength(1000.0, 1000.0, 1000.0);
+	static final double STRONG = strength(1.0, 0.0, 0.0);
+	static final double MEDIUM = strength(0.0, 1.0, 0.0);
+	static final double WEAK = strength(0.0, 0.0, 1.0);
+
+	private static final double EPSILON = 1.0e-8;
+
+	private final Map<Constraint, Tag> constraints = new LinkedHashMap<>();
+	//The symbols that have a row, in the order their rows were added.  Each of them holds its row
+	private Symbol[] basics = new Symbol[16];
+	private int basicCount = 0;
+	private final Map<Variable, Symbol> variables = new LinkedHashMap<>();
+	private final Map<Variable, EditInfo> edits = new LinkedHashMap<>();
+	private final ArrayList<Symbol> infeasibleRows = new ArrayList<>();
+	private final Row objective = new Row();
+	private Row artificial;
+	private long symbolCount = 0;
+	private boolean hasChanged = false;
+
+	static double strength(double strong, double medium, double weak)
+	{
+		double result = 0.0;
+		result += Math.max(0.0, Math.min(1000.0, strong)) * 1000000.0;
+		result += Math.max(0.0, Math.min(1000.0, medium)) * 1000.0;
+		result += Math.max(0.0, Math.min(1000.0, weak));
+		return result;
+	}
+
+	private static double clip(double strength)
+	{
+		return Math.max(0.0, Math.min(REQUIRED, strength));
+	}
+
+	private static boolean nearZero(double value)
+	{
+		return value < 0.0 ? -value < EPSILON : value < EPSILON;
+	}
+
+	/**
+	 * Adds a constraint to the tableau.
+	 *
+	 * @return <code>false</code> if the constraint has already been added, or if it is required and cannot be satisfied together with the other required constraints.  In the latter case the tableau may be left inconsistent, and the solver should be rebuilt without the constraint.
+	 */
+	boolean addConstraint(Constraint constraint)
+	{
+		hasChanged = true;
+		if (constraints.containsKey(constraint)) { return false; }
+
+		Tag tag = new Tag();
+		Row row = createRow(constraint, tag);
+		Symbol subject = chooseSubject(row, tag);
+
+		if (subject == null && allDummies(row))
+		{
+			if (!nearZero(row.constant))
+			{
+				removeObjectiveTerms(tag, constraint.strength);
+				return false;
+			}
+			subject = tag.marker;
+		}
+
+		if (subject == null)
+		{
+			if (!addWithArtificialVariable(row))
+			{
+				removeObjectiveTerms(tag, constraint.strength);
+				return false;
+			}
+		}
+		else
+		{
+			row.solveFor(subject);
+			substitute(subject, row);
+			putRow(subject, row);
+		}
+
+		constraints.put(constraint, tag);
+		optimize(objective);
+		return true;
+	}
+
+	/**
+	 * Removes a constraint that was previously added with <code>addConstraint(_:)</code>.
+	 *
+	 * @return <code>false</code> if the constraint is not part of the tableau.
+	 */
+	boolean removeConstraint(Constraint constraint)
+	{
+		hasChanged = true;
+		Tag tag = constraints.remove(constraint);
+		if (tag == null) { return false; }
+
+		if (tag.marker.type == Symbol.ERROR)
+		{
+			removeMarkerEffects(tag.marker, constraint.strength);
+		}
+		if (tag.other != null && tag.other.type == Symbol.ERROR)
+		{
+			removeMarkerEffects(tag.other, constraint.strength);
+		}
+
+		if (removeRow(tag.marker) == null)
+		{
+			Symbol leaving = markerLeavingSymbol(tag.marker);
+			if (leaving == null)
+			{
+				throw new IllegalStateException("Failed to find a leaving row while removing " + constraint.toString());
+			}
+			Row row = removeRow(leaving);
+			row.solveFor(leaving, tag.marker);
+			substitute(tag.marker, row);
+		}
+
+		optimize(objective);
+		return true;
+	}
+
+	boolean hasConstraint(Constraint constraint)
+	{
+		return constraints.containsKey(constraint);
+	}
+
+	/**
+	 * Registers a variable whose value will be suggested with <code>suggestValue(_:_:)</code>.  Edit variables may not be required.
+	 */
+	boolean addEditVariable(Variable variable, double strength)
+	{
+		if (edits.containsKey(variable)) { return false; }
+		strength = clip(strength);
+		if (strength == REQUIRED) { return false; }
+
+		Constraint constraint = new Constraint(Relation.equal, strength, 0.0);
+		constraint.addTerm(variable, 1.0);
+		if (!addConstraint(constraint)) { return false; }
+		edits.put(variable, new EditInfo(constraint, constraints.get(constraint)));
+		return true;
+	}
+
+	boolean removeEditVariable(Variable variable)
+	{
+		EditInfo info = edits.remove(variable);
+		if (info == null) { return false; }
+		removeConstraint(info.constraint);
+		return true;
+	}
+
+	boolean hasEditVariable(Variable variable)
+	{
+		return edits.containsKey(variable);
+	}
+
+	/**
+	 * Suggests a new value for an edit variable and re-optimizes the tableau using the dual simplex method.  Suggesting the value an edit variable already holds is free.
+	 */
+	void suggestValue(Variable variable, double value)
+	{
+		EditInfo info = edits.get(variable);
+		if (info == null)
+		{
+			throw new IllegalArgumentException(variable.toString() + " is not an edit variable");
+		}
+
+		double delta = value - info.constant;
+		if (delta == 0.0) { return; }
+		info.constant = value;
+		hasChanged = true;
+
+		Row row = info.tag.marker.row;
+		if (row != null)
+		{
+			if (row.add(-delta) < 0.0)
+			{
+				infeasibleRows.add(info.tag.marker);
+			}
+			dualOptimize();
+			return;
+		}
+
+		row = info.tag.other == null ? null : info.tag.other.row;
+		if (row != null)
+		{
+			if (row.add(delta) < 0.0)
+			{
+				infeasibleRows.add(info.tag.other);
+			}
+			dualOptimize();
+			return;
+		}
+
+		for (int index = 0; index < basicCount; index++)
+		{
+			Symbol basic = basics[index];
+			double coefficient = basic.row.coefficientFor(info.tag.marker);
+			if (coefficient != 0.0 && basic.row.add(delta * coefficient) < 0.0 && basic.type != Symbol.EXTERNAL)
+			{
+				infeasibleRows.add(basic);
+			}
+		}
+		dualOptimize();
+	}
+
+	/**
+	 * Copies the current solution into the <code>value</code> of every variable known to the solver.  Does nothing if the tableau has not changed since the last call.
+	 */
+	void updateVariables()
+	{
+		if (!hasChanged) { return; }
+		hasChanged = false;
+
+		for (Map.Entry<Variable, Symbol> entry : variables.entrySet())
+		{
+			Row row = entry.getValue().row;
+			entry.getKey().value = row == null ? 0.0 : row.constant;
+		}
+	}
+
+	private Row createRow(Constraint constraint, Tag tag)
+	{
+		Row row = new Row(constraint.constant);
+
+		for (Map.Entry<Variable, Double> term : constraint.terms.entrySet())
+		{
+			if (nearZero(term.getValue())) { continue; }
+
+			Symbol symbol = symbolFor(term.getKey());
+			if (symbol.row != null)
+			{
+				row.insert(symbol.row, term.getValue());
+			}
+			else
+			{
+				row.insert(symbol, term.getValue());
+			}
+		}
+
+		switch (constraint.relation)
+		{
+			case lessThanOrEqual:
+			case greaterThanOrEqual:
+			{
+				double coefficient = constraint.relation == Relation.lessThanOrEqual ? 1.0 : -1.0;
+				Symbol slack = newSymbol(Symbol.SLACK);
+				tag.marker = slack;
+				row.insert(slack, coefficient);
+				if (constraint.strength < REQUIRED)
+				{
+					Symbol error = newSymbol(Symbol.ERROR);
+					tag.other = error;
+					row.insert(error, -coefficient);
+					objective.insert(error, constraint.strength);
+				}
+				break;
+			}
+
+			case equal:
+			{
+				if (constraint.strength < REQUIRED)
+				{
+					Symbol errorPlus = newSymbol(Symbol.ERROR);
+					Symbol errorMinus = newSymbol(Symbol.ERROR);
+					tag.marker = errorPlus;
+					tag.other = errorMinus;
+					row.insert(errorPlus, -1.0);
+					row.insert(errorMinus, 1.0);
+					objective.insert(errorPlus, constraint.strength);
+					objective.insert(errorMinus, constraint.strength);
+				}
+				else
+				{
+					Symbol dummy = newSymbol(Symbol.DUMMY);
+					tag.marker = dummy;
+					row.insert(dummy, 1.0);
+				}
+				break;
+			}
+		}
+
+		if (row.constant < 0.0)
+		{
+			row.reverseSign();
+		}
+
+		return row;
+	}
+
+	private void removeObjectiveTerms(Tag tag, double strength)
+	{
+		if (tag.marker != null && tag.marker.type == Symbol.ERROR)
+		{
+			objective.insert(tag.marker, -strength);
+		}
+		if (tag.other != null && tag.other.type == Symbol.ERROR)
+		{
+			objective.insert(tag.other, -strength);
+		}
+	}
+
+	private static Symbol chooseSubject(Row row, Tag tag)
+	{
+		for (int cell = 0; cell < row.size; cell++)
+		{
+			if (row.symbols[cell].type == Symbol.EXTERNAL) { return row.symbols[cell]; }
+		}
+		if (tag.marker.type == Symbol.SLACK || tag.marker.type == Symbol.ERROR)
+		{
+			if (row.coefficientFor(tag.marker) < 0.0) { return tag.marker; }
+		}
+		if (tag.other != null && (tag.other.type == Symbol.SLACK || tag.other.type == Symbol.ERROR))
+		{
+			if (row.coefficientFor(tag.other) < 0.0) { return tag.other; }
+		}
+		return null;
+	}
+
+	private static boolean allDummies(Row row)
+	{
+		for (int cell = 0; cell < row.size; cell++)
+		{
+			if (row.symbols[cell].type != Symbol.DUMMY) { return false; }
+		}
+		return true;
+	}
+
+	private boolean addWithArtificialVariable(Row row)
+	{
+		Symbol art = newSymbol(Symbol.SLACK);
+		putRow(art, new Row(row));
+		artificial = new Row(row);
+
+		optimize(artificial);
+		boolean success = nearZero(artificial.constant);
+		artificial = null;
+
+		Row basic = removeRow(art);
+		if (basic != null)
+		{
+			if (basic.size == 0) { return success; }
+
+			Symbol entering = anyPivotableSymbol(basic);
+			if (entering == null) { return false; }
+
+			basic.solveFor(art, entering);
+			substitute(entering, basic);
+			putRow(entering, basic);
+		}
+
+		for (int index = 0; index < basicCount; index++)
+		{
+			basics[index].row.remove(art);
+		}
+		objective.remove(art);
+		return success;
+	}
+
+	private void substitute(Symbol symbol, Row row)
+	{
+		for (int index = 0; index < basicCount; index++)
+		{
+			Symbol basic = basics[index];
+			basic.row.substitute(symbol, row);
+			if (basic.type != Symbol.EXTERNAL && basic.row.constant < 0.0)
+			{
+				infeasibleRows.add(basic);
+			}
+		}
+		objective.substitute(symbol, row);
+		if (artificial != null)
+		{
+			artificial.substitute(symbol, row);
+		}
+	}
+
+	private void optimize(Row objective)
+	{
+		while (true)
+		{
+			Symbol entering = enteringSymbol(objective);
+			if (entering == null) { return; }
+
+			Symbol leaving = leavingSymbol(entering);
+			if (leaving == null)
+			{
+				throw new IllegalStateException("The objective is unbounded");
+			}
+
+			Row row = removeRow(leaving);
+			row.solveFor(leaving, entering);
+			substitute(entering, row);
+			putRow(entering, row);
+		}
+	}
+
+	private void dualOptimize()
+	{
+		while (!infeasibleRows.isEmpty())
+		{
+			Symbol leaving = infeasibleRows.remove(infeasibleRows.size() - 1);
+			Row row = leaving.row;
+			if (row == null || nearZero(row.constant) || row.constant >= 0.0) { continue; }
+
+			Symbol entering = dualEnteringSymbol(row);
+			if (entering == null)
+			{
+				throw new IllegalStateException("The dual optimization failed");
+			}
+
+			removeRow(leaving);
+			row.solveFor(leaving, entering);
+			substitute(entering, row);
+			putRow(entering, row);
+		}
+	}
+
+	private static Symbol enteringSymbol(Row objective)
+	{
+		for (int cell = 0; cell < objective.size; cell++)
+		{
+			if (objective.symbols[cell].type != Symbol.DUMMY && objective.coefficients[cell] < 0.0) { return objective.symbols[cell]; }
+		}
+		return null;
+	}
+
+	private Symbol dualEnteringSymbol(Row row)
+	{
+		Symbol entering = null;
+		double ratio = Double.MAX_VALUE;
+		for (int cell = 0; cell < row.size; cell++)
+		{
+			Symbol symbol = row.symbols[cell];
+			double coefficient = row.coefficients[cell];
+			if (coefficient > 0.0 && symbol.type != Symbol.DUMMY)
+			{
+				double candidate = objective.coefficientFor(symbol) / coefficient;
+				if (candidate < ratio)
+				{
+					ratio = candidate;
+					entering = symbol;
+				}
+			}
+		}
+		return entering;
+	}
+
+	private static Symbol anyPivotableSymbol(Row row)
+	{
+		for (int cell = 0; cell < row.size; cell++)
+		{
+			Symbol symbol = row.symbols[cell];
+			if (symbol.type == Symbol.SLACK || symbol.type == Symbol.ERROR) { return symbol; }
+		}
+		return null;
+	}
+
+	private Symbol leavingSymbol(Symbol entering)
+	{
+		double ratio = Double.MAX_VALUE;
+		Symbol found = null;
+		for (int index = 0; index < basicCount; index++)
+		{
+			Symbol basic = basics[index];
+			if (basic.type == Symbol.EXTERNAL) { continue; }
+
+			double coefficient = basic.row.coefficientFor(entering);
+			if (coefficient < 0.0)
+			{
+				double candidate = -basic.row.constant / coefficient;
+				if (candidate < ratio)
+				{
+					ratio = candidate;
+					found = basic;
+				}
+			}
+		}
+		return found;
+	}
+
+	private Symbol markerLeavingSymbol(Symbol marker)
+	{
+		double firstRatio = Double.MAX_VALUE;
+		double secondRatio = Double.MAX_VALUE;
+		Symbol first = null;
+		Symbol second = null;
+		Symbol third = null;
+		for (int index = 0; index < basicCount; index++)
+		{
+			Symbol basic = basics[index];
+			double coefficient = basic.row.coefficientFor(marker);
+			if (coefficient == 0.0) { continue; }
+
+			if (basic.type == Symbol.EXTERNAL)
+			{
+				third = basic;
+			}
+			else if (coefficient < 0.0)
+			{
+				double ratio = -basic.row.constant / coefficient;
+				if (ratio < firstRatio)
+				{
+					firstRatio = ratio;
+					first = basic;
+				}
+			}
+			else
+			{
+				double ratio = basic.row.constant / coefficient;
+				if (ratio < secondRatio)
+				{
+					secondRatio = ratio;
+					second = basic;
+				}
+			}
+		}
+		return first != null ? first : second != null ? second : third;
+	}
+
+	private void removeMarkerEffects(Symbol marker, double strength)
+	{
+		if (marker.row != null)
+		{
+			objective.insert(marker.row, -strength);
+		}
+		else
+		{
+			objective.insert(marker, -strength);
+		}
+	}
+
+	/**
+	 * Makes <code>row</code> the row of <code>symbol</code>, which becomes basic.
+	 */
+	private void putRow(Symbol symbol, Row row)
+	{
+		if (symbol.row == null)
+		{
+			if (basicCount == basics.length)
+			{
+				basics = Arrays.copyOf(basics, basicCount * 2);
+			}
+			basics[basicCount++] = symbol;
+		}
+		symbol.row = row;
+	}
+
+	/**
+	 * @return the row <code>symbol</code> had, or <code>null</code> if it was not basic
+	 */
+	private Row removeRow(Symbol symbol)
+	{
+		Row row = symbol.row;
+		if (row == null) { return null; }
+
+		symbol.row = null;
+		int index = 0;
+		while (basics[index] != symbol)
+		{
+			index++;
+		}
+		System.arraycopy(basics, index + 1, basics, index, basicCount - index - 1);
+		basics[--basicCount] = null;
+		return row;
+	}
+
+	private Symbol symbolFor(Variable variable)
+	{
+		Symbol symbol = variables.get(variable);
+		if (symbol == null)
+		{
+			symbol = newSymbol(Symbol.EXTERNAL);
+			variables.put(variable, symbol);
+		}
+		return symbol;
+	}
+
+	private Symbol newSymbol(int type)
+	{
+		return new Symbol(type, ++symbolCount);
+	}
+
+	enum Relation
+	{
+		lessThanOrEqual, equal, greaterThanOrEqual
+	}
+
+	/**
+	 * A value the solver is able to adjust.  After <code>updateVariables()</code>, <code>value</code> holds the solved value.
+	 */
+	static final class Variable
+	{
+		final String name;
+		double value = 0.0;
+
+		Variable(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public String toString()
+		{
+			return name + "=" + value;
+		}
+	}
+
+	/**
+	 * A linear constraint of the form <code>terms + constant (relation) 0</code>.
+	 */
+	static final class Constraint
+	{
+		final Map<Variable, Double> terms = new LinkedHashMap<>();
+		final Relation relation;
+		final double strength;
+		double constant;
+
+		Constraint(Relation relation, double strength, double constant)
+		{
+			this.relation = relation;
+			this.strength = clip(strength);
+			this.constant = constant;
+		}
+
+		Constraint addTerm(Variable variable, double coefficient)
+		{
+			if (variable == null)
+			{
+				constant += coefficient;
+				return this;
+			}
+			terms.merge(variable, coefficient, Double::sum);
+			return this;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder builder = new StringBuilder();
+			for (Map.Entry<Variable, Double> term : terms.entrySet())
+			{
+				builder.append(term.getValue()).append(" * ").append(term.getKey().name).append(" + ");
+			}
+			builder.append(constant);
+			builder.append(relation == Relation.equal ? " == 0" : relation == Relation.lessThanOrEqual ? " <= 0" : " >= 0");
+			return builder.toString();
+		}
+	}
+
+	private static final class Symbol
+	{
+		static final int EXTERNAL = 1;
+		static final int SLACK = 2;
+		static final int ERROR = 3;
+		static final int DUMMY = 4;
+
+		final int type;
+		final long id;
+		//The row this symbol is the subject of while it is basic, or null
+		Row row;
+
+		Symbol(int type, long id)
+		{
+			this.type = type;
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Long.hashCode(id);
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			return object == this;
+		}
+	}
+
+	private static final class Tag
+	{
+		Symbol marker;
+		Symbol other;
+	}
+
+	private static final class EditInfo
+	{
+		final Constraint constraint;
+		final Tag tag;
+		double constant = 0.0;
+
+		EditInfo(Constraint constraint, Tag tag)
+		{
+			this.constraint = constraint;
+			this.tag = tag;
+		}
+	}
+
+	/**
+	 * A linear expression of symbols plus a constant.  The cells are kept in parallel arrays in the order their symbols were inserted, which is also the order they are searched in.
+	 */
+	private static final class Row
+	{
+		private Symbol[] symbols;
+		private double[] coefficients;
+		private int size = 0;
+		double constant;
+
+		Row()
+		{
+			this(0.0);
+		}
+
+		Row(double constant)
+		{
+			this.symbols = new Symbol[4];
+			this.coefficients = new double[4];
+			this.constant = constant;
+		}
+
+		Row(Row other)
+		{
+			this.symbols = other.symbols.clone();
+			this.coefficients = other.coefficients.clone();
+			this.size = other.size;
+			this.constant = other.constant;
+		}
+
+		double add(double value)
+		{
+			constant += value;
+			return constant;
+		}
+
+		void insert(Symbol symbol, double coefficient)
+		{
+			int cell = indexOf(symbol);
+			if (cell < 0)
+			{
+				if (nearZero(coefficient)) { return; }
+				if (size == symbols.length)
+				{
+					symbols = Arrays.copyOf(symbols, size * 2);
+					coefficients = Arrays.copyOf(coefficients, size * 2);
+				}
+				symbols[size] = symbol;
+				coefficients[size++] = coefficient;
+				return;
+			}
+
+			double value = coefficients[cell] + coefficient;
+			if (nearZero(value))
+			{
+				removeCell(cell);
+			}
+			else
+			{
+				coefficients[cell] = value;
+			}
+		}
+
+		void insert(Row other, double coefficient)
+		{
+			constant += other.constant * coefficient;
+			for (int cell = 0; cell < other.size; cell++)
+			{
+				insert(other.symbols[cell], other.coefficients[cell] * coefficient);
+			}
+		}
+
+		void remove(Symbol symbol)
+		{
+			int cell = indexOf(symbol);
+			if (cell >= 0)
+			{
+				removeCell(cell);
+			}
+		}
+
+		void reverseSign()
+		{
+			constant = -constant;
+			for (int cell = 0; cell < size; cell++)
+			{
+				coefficients[cell] = -coefficients[cell];
+			}
+		}
+
+		void solveFor(Symbol symbol)
+		{
+			int index = indexOf(symbol);
+			double coefficient = -1.0 / coefficients[index];
+			removeCell(index);
+			constant *= coefficient;
+			for (int cell = 0; cell < size; cell++)
+			{
+				coefficients[cell] *= coefficient;
+			}
+		}
+
+		void solveFor(Symbol lhs, Symbol rhs)
+		{
+			insert(lhs, -1.0);
+			solveFor(rhs);
+		}
+
+		double coefficientFor(Symbol symbol)
+		{
+			int cell = indexOf(symbol);
+			return cell < 0 ? 0.0 : coefficients[cell];
+		}
+
+		void substitute(Symbol symbol, Row row)
+		{
+			int cell = indexOf(symbol);
+			if (cell >= 0)
+			{
+				double coefficient = coefficients[cell];
+				removeCell(cell);
+				insert(row, coefficient);
+			}
+		}
+
+		private int indexOf(Symbol symbol)
+		{
+			for (int cell = 0; cell < size; cell++)
+			{
+				if (symbols[cell] == symbol) { return cell; }
+			}
+			return -1;
+		}
+
+		private void removeCell(int cell)
+		{
+			System.arraycopy(symbols, cell + 1, symbols, cell, size - cell - 1);
+			System.arraycopy(coefficients, cell + 1, coefficients, cell, size - cell - 1);
+			symbols[--size] = null;
+		}
+	}
+}
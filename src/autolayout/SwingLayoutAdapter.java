@@ -0,0 +1,59 @@
+package autolayout;
+
+import java.awt.*;
+
+/**
+ * Lays out <code>java.awt.Component</code>s.  Frames are read with the component's getters and written with <code>setBounds</code>, and the preferred size is <code>getPreferredSize()</code>.
+ * <p>
+ * <code>getPreferredSize()</code> returns a new <code>Dimension</code>, and most Swing UIs measure the component again to make it, so it is only called for components that are not valid.  Changing the text, font, icon or border of a component invalidates it, and Swing validates it again after the layout pass of its parent.
+ */
+final class SwingLayoutAdapter implements LayoutAdapter
+{
+	static final SwingLayoutAdapter shared = new SwingLayoutAdapter();
+
+	private SwingLayoutAdapter() { }
+
+	@Override
+	public int x(Object item)
+	{
+		return ((Component) item).getX();
+	}
+
+	@Override
+	public int y(Object item)
+	{
+		return ((Component) item).getY();
+	}
+
+	@Override
+	public int width(Object item)
+	{
+		return ((Component) item).getWidth();
+	}
+
+	@Override
+	public int height(Object item)
+	{
+		return ((Component) item).getHeight();
+	}
+
+	@Override
+	public void preferredSize(Object item, int[] size)
+	{
+		Dimension preferredSize = ((Component) item).getPreferredSize();
+		size[0] = preferredSize.width;
+		size[1] = preferredSize.height;
+	}
+
+	@Override
+	public boolean preferredSizeMayHaveChanged(Object item)
+	{
+		return !((Component) item).isValid();
+	}
+
+	@Override
+	public void setFrame(Object item, int x, int y, int width, int height)
+	{
+		((Component) item).setBounds(x, y, width, height);
+	}
+}
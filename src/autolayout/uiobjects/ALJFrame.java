@@ -1,5 +1,8 @@
 package autolayout.uiobjects;
 
+import autolayout.LayoutEngine;
+import autolayout.LayoutScheduler;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentEvent;
@@ -7,48 +10,76 @@ import java.awt.event.ComponentListener;
 
 /**
  * Use ALJFrame in place of JFrame to inherit AutoLayout properties on JFrames.  This class is subclassable, but can be used as is.
+ * <p>
+ * A window can be given a <code>LayoutEngine</code> of its own with <code>setLayoutEngine(_:)</code>, so its settings, and the cost of laying it out, are kept apart from other windows.
+ * <p>
+ * Resizes are coalesced by a <code>LayoutScheduler</code>, so the content is laid out at most once per frame while the window is being dragged.  Moving the window does not change its layout, so it does not trigger one.
  */
 @SuppressWarnings({"unused"})
 public class ALJFrame extends JFrame implements ComponentListener
 {
+	private final LayoutScheduler layoutScheduler = new LayoutScheduler(this::layoutSubviews);
+
 	public ALJFrame(String title)
 	{
 		super(title);
 		addComponentListener(this);
 	}
 
+	/**
+	 * Makes <code>engine</code> lay out every <code>Constrainable</code> in this window.
+	 *
+	 * @param engine the engine to use, or <code>null</code> to use <code>LayoutEngine.current</code>
+	 */
+	public void setLayoutEngine(LayoutEngine engine)
+	{
+		LayoutEngine.setLayoutEngine(getRootPane(), engine);
+	}
+
+	public LayoutEngine layoutEngine()
+	{
+		return LayoutEngine.engineFor(getRootPane());
+	}
+
+	/**
+	 * Schedules a layout of the content pane for the next frame.  Multiple calls before then result in a single layout pass.
+	 */
+	public void setNeedsLayout()
+	{
+		layoutScheduler.setNeedsLayout();
+	}
+
+	/**
+	 * Lays out the content pane right away if a layout is pending.
+	 */
+	public void layoutIfNeeded()
+	{
+		layoutScheduler.layoutIfNeeded();
+	}
+
 	private void layoutSubviews()
 	{
 		if (!isVisible()) { return; }
 		process();
 		getContentPane().revalidate();
 		getContentPane().repaint();
-		process();
-		getContentPane().revalidate();
-		getContentPane().repaint();
 	}
 
 	@Override
 	public void componentResized(ComponentEvent e)
 	{
-		layoutSubviews();
+		layoutScheduler.setNeedsLayout();
 	}
 
 	@Override
-	public void componentMoved(ComponentEvent e)
-	{
-		layoutSubviews();
-	}
+	public void componentMoved(ComponentEvent e) { }
 
 	@Override
 	public void componentShown(ComponentEvent e)
 	{
-		process();
-		getContentPane().revalidate();
-		getContentPane().repaint();
-		process();
-		getContentPane().revalidate();
-		getContentPane().repaint();
+		//Lay out before the first frame is painted instead of waiting for the scheduler
+		layoutScheduler.setNeedsLayout();
+		layoutScheduler.layoutIfNeeded();
 	}
 
 	@Override
@@ -61,11 +92,11 @@ public class ALJFrame extends JFrame implements ComponentListener
 			component.setBounds(0, component.getBounds().y, getContentPane().getWidth(), getContentPane().getHeight() - component.getBounds().y);
 			if (component instanceof ALJPanel)
 			{
-				((ALJPanel) component).layoutSubviews();
+				((ALJPanel) component).layoutIfNeeded();
 			}
-			else if (component instanceof JPanel)
+			else if (component instanceof JComponent)
 			{
-				((ComponentListener) component).componentResized(null);
+				ForeignLayoutBridge.layoutIfResized((JComponent) component);
 			}
 		}
 	}
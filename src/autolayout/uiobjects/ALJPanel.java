@@ -1,12 +1,13 @@
 package autolayout.uiobjects;
 
 import autolayout.Constrainable;
+import autolayout.ConstraintStore;
+import autolayout.LayoutCache;
 import autolayout.LayoutConstraint;
 import autolayout.LayoutEngine;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ComponentListener;
 import java.util.ArrayList;
 
 /**
@@ -14,6 +15,8 @@ import java.util.ArrayList;
  * <p>
  * When adding views, you call <code>addConstraints(_:)</code> to add a constraint for processing.
  * <p>
+ * Constraints that can never be satisfied, or that repeat a required equality the view already has, are reported and ignored when they are added.  Set the <code>priority</code> of a constraint before adding it, so it is checked against the right constraints.
+ * <p>
  * Every view on screen needs a full set of layout constraints, or <code>LayoutEngine</code> will not be able to layout the view.  Some views, such as JLabel provide automatic preferredSizes, and do not need explicit constraints for specifying width and height, but these constraints can be added without issue.
  * <p>
  * If you attempt to add <code>Components</code> that are not of type <code>JComponent</code>, <code>LayoutEngine</code> will crash as these are not Swing compatible views.
@@ -22,14 +25,34 @@ import java.util.ArrayList;
  * <p>
  * Currently, the panel's compression resistance is not honored as each constraint is given full priority.  The calculated height and width are managed however, and can be used to determine width and height after a layout pass.
  */
-@SuppressWarnings({"unchecked", "unused"})
+@SuppressWarnings("unused")
 public class ALJPanel extends JLayeredPane implements Constrainable
 {
-	private final ArrayList<LayoutConstraint> _constraints = new ArrayList<>();
+	//Subclasses that replace how they are laid out cannot be laid out by the engine as part of a batch
+	private static final ClassValue<Boolean> customizesLayout = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				return type.getMethod("layoutSubviews").getDeclaringClass() != ALJPanel.class || type.getMethod("layoutIfNeeded").getDeclaringClass() != ALJPanel.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return true;
+			}
+		}
+	};
+
+	private final ConstraintStore _constraints = new ConstraintStore(this, this::constraintValuesDidChange);
+	private final LayoutCache layoutCache = new LayoutCache();
 	private int panelCompressionWidth = 750;
 	private int panelCompressionHeight = 750;
 	private int calculatedHeight = 0;
 	private int calculatedWidth = 0;
+	private final ArrayList<ALJPanel> childrenToLayout = new ArrayList<>();
+	private final ArrayList<ALJPanel> batch = new ArrayList<>();
 
 	public ALJPanel()
 	{
@@ -42,55 +65,58 @@ public class ALJPanel extends JLayeredPane implements Constrainable
 	@Override
 	public void addConstraint(LayoutConstraint constraint)
 	{
-		_constraints.add(constraint);
+		if (_constraints.add(constraint))
+		{
+			constraintsDidChange();
+		}
 	}
 
 	@Override
 	public LayoutConstraint[] allConstraints()
 	{
-		LayoutConstraint[] constraintsToReturn = new LayoutConstraint[_constraints.size()];
-		Object[] storedConstraints = _constraints.toArray();
-		int count = 0;
-		for (Object storedConstraint : storedConstraints)
-		{
-			constraintsToReturn[count] = (LayoutConstraint) storedConstraint;
-			count++;
-		}
-		return constraintsToReturn;
+		return _constraints.toArray();
 	}
 
 	public void removeAllConstraints()
 	{
-		_constraints.removeIf(layoutConstraint -> true);
+		_constraints.clear();
+		constraintsDidChange();
 	}
 
 	public void removeConstraintsFor(JComponent component)
 	{
-		for (LayoutConstraint constraint : (ArrayList<LayoutConstraint>) _constraints.clone())
+		if (_constraints.removeConstraintsFor(component))
 		{
-			if (constraint.viewOne == component)
-			{
-				_constraints.remove(constraint);
-			}
+			constraintsDidChange();
 		}
 	}
 
 	public void removeConstraint(LayoutConstraint constraint)
 	{
-		_constraints.remove(constraint);
+		if (_constraints.remove(constraint))
+		{
+			constraintsDidChange();
+		}
+	}
+
+	@Override
+	protected void addImpl(Component comp, Object constraints, int index)
+	{
+		super.addImpl(comp, constraints, index);
+		subviewsDidChange();
 	}
 
 	@Override
 	public void remove(Component comp)
 	{
 		super.remove(comp);
-
-		for (LayoutConstraint constraint : (ArrayList<LayoutConstraint>) _constraints.clone())
+		if (_constraints.removeConstraintsReferencing(comp))
 		{
-			if (constraint.viewOne == comp || constraint.viewTwo == comp)
-			{
-				_constraints.remove(constraint);
-			}
+			constraintsDidChange();
+		}
+		else
+		{
+			subviewsDidChange();
 		}
 	}
 
@@ -98,32 +124,172 @@ public class ALJPanel extends JLayeredPane implements Constrainable
 	public void removeAll()
 	{
 		super.removeAll();
-		_constraints.removeAll((ArrayList<LayoutConstraint>) _constraints.clone());
+		_constraints.clear();
+		constraintsDidChange();
+	}
+
+	private void constraintsDidChange()
+	{
+		layoutCache.invalidate();
+		setNeedsLayout();
+	}
+
+	/**
+	 * Called when a subview is added, or removed without taking any constraint with it.  Discards the cached layout plan and marks this panel as needing a layout pass.  Subclasses that place their subviews with <code>setBounds</code> instead of constraints can override this to do neither.
+	 */
+	protected void subviewsDidChange()
+	{
+		constraintsDidChange();
+	}
+
+	private void constraintValuesDidChange()
+	{
+		layoutCache.constraintValuesDidChange();
+		setNeedsLayout();
+	}
+
+	/**
+	 * Marks this panel as needing a layout pass, and schedules one with the <code>ALJFrame</code> it is in, if any.
+	 */
+	@Override
+	public void setNeedsLayout()
+	{
+		Constrainable.super.setNeedsLayout();
+		Window window = SwingUtilities.getWindowAncestor(this);
+		if (window instanceof ALJFrame)
+		{
+			((ALJFrame) window).setNeedsLayout();
+		}
 	}
 
 	@Override
 	public void layoutSubviews()
 	{
-		LayoutEngine.current.processConstraintsIn(this);
-		for (Component component : getComponents())
+		layoutEngine().processConstraintsIn(this);
+		layoutDescendantsIfNeeded();
+		repaint();
+	}
+
+	/**
+	 * Called by Swing when the panel is validated.  The panel is only laid out if it needs it, so validations after <code>revalidate()</code> calls that did not change anything are free.
+	 */
+	@Override
+	public void doLayout()
+	{
+		//Swing validates the subviews right after this, so if this pass is skipped, a subview invalidated by a change to its preferred size would look unchanged to the next pass
+		if (!layoutCache.needsLayout(getWidth(), getHeight()) && hasInvalidSubview())
 		{
+			layoutCache.preferredSizesMayHaveChanged();
+		}
+		layoutIfNeeded();
+	}
+
+	private boolean hasInvalidSubview()
+	{
+		for (int index = 0; index < getComponentCount(); index++)
+		{
+			if (!getComponent(index).isValid()) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * Lays out this panel if it needs it.  If only a descendant needs a layout pass, this panel keeps its frames and only the affected subtree is laid out.
+	 */
+	@Override
+	public void layoutIfNeeded()
+	{
+		if (layoutCache.needsLayout(getWidth(), getHeight()))
+		{
+			layoutCache.didLayoutDescendants();
+			layoutSubviews();
+		}
+		else if (layoutCache.descendantNeedsLayout())
+		{
+			layoutCache.didLayoutDescendants();
+			layoutDescendantsIfNeeded();
+		}
+	}
+
+	/**
+	 * Asks every child <code>ALJPanel</code> to lay out if needed.  Children whose bounds and constraints did not change are skipped along with their whole subtree.  Other children with a layout of their own are only revalidated when their size changed.  Subclasses that lay out views that are not direct children can override this.
+	 * <p>
+	 * Sibling panels have independent constraints, so when several of them need a layout pass they are handed to <code>LayoutEngine</code> as one batch, which can solve them in parallel.  Each batch only holds the children of one engine, so children given an engine of their own with <code>LayoutEngine.setLayoutEngine(_:_:)</code> are laid out by it.  Subclasses that override <code>layoutSubviews()</code> or <code>layoutIfNeeded()</code> are laid out one at a time instead.
+	 */
+	protected void layoutDescendantsIfNeeded()
+	{
+		int skipped = 0;
+		for (int index = 0; index < getComponentCount(); index++)
+		{
+			Component component = getComponent(index);
 			if (component instanceof ALJPanel)
 			{
-				((ALJPanel) component).layoutSubviews();
+				ALJPanel child = (ALJPanel) component;
+				boolean needsLayout = child.layoutCache.needsLayout(child.getWidth(), child.getHeight());
+				if (!customizesLayout.get(child.getClass()) && needsLayout)
+				{
+					childrenToLayout.add(child);
+				}
+				else
+				{
+					if (!needsLayout && !child.layoutCache.descendantNeedsLayout())
+					{
+						skipped++;
+					}
+					child.layoutIfNeeded();
+				}
 			}
-			else if (component instanceof JPanel)
+			else if (component instanceof JComponent)
 			{
-				try
+				ForeignLayoutBridge.layoutIfResized((JComponent) component);
+			}
+		}
+
+		while (!childrenToLayout.isEmpty())
+		{
+			//Takes the children laid out by the same engine as the first one, and keeps the rest in order for the next batch
+			LayoutEngine engine = childrenToLayout.get(0).layoutEngine();
+			int remaining = 0;
+			for (int index = 0; index < childrenToLayout.size(); index++)
+			{
+				ALJPanel child = childrenToLayout.get(index);
+				if (child.layoutEngine() == engine)
+				{
+					batch.add(child);
+				}
+				else
 				{
-					((ComponentListener) component).componentResized(null);
+					childrenToLayout.set(remaining++, child);
 				}
-				catch (Exception ignored) { }
-				component.revalidate();
+			}
+			childrenToLayout.subList(remaining, childrenToLayout.size()).clear();
+			layoutBatch(engine);
+		}
+
+		if (skipped > 0)
+		{
+			layoutEngine().didSkipLayout(skipped);
+		}
+	}
 
+	private void layoutBatch(LayoutEngine engine)
+	{
+		if (batch.size() == 1)
+		{
+			batch.get(0).layoutIfNeeded();
+		}
+		else
+		{
+			engine.processConstraintsIn(batch);
+			for (ALJPanel child : batch)
+			{
+				//The rest of layoutSubviews(), now that the engine laid out the child itself
+				child.layoutCache.didLayoutDescendants();
+				child.layoutDescendantsIfNeeded();
+				child.repaint();
 			}
-			component.repaint();
 		}
-		repaint();
+		batch.clear();
 	}
 
 	@Override
@@ -173,4 +339,10 @@ public class ALJPanel extends JLayeredPane implements Constrainable
 	{
 		return calculatedWidth;
 	}
+
+	@Override
+	public LayoutCache layoutCache()
+	{
+		return layoutCache;
+	}
 }
@@ -37,17 +37,12 @@ abstract public class ALJTablePanel extends ALJPanel implements ALJTableDataSour
 	@Override
 	public void layoutSubviews()
 	{
+		//super lays out the table along with every other subview, and reloadData() lays it out again once loaded
 		super.layoutSubviews();
 		if (!table.isLoaded())
 		{
 			table.reloadData();
-			table.layoutSubviews();
-			repaint();
-		}
-		else
-		{
-			table.layoutSubviews();
-			repaint();
 		}
+		repaint();
 	}
 }
@@ -0,0 +1,60 @@
+package autolayout.uiobjects;
+
+import javax.swing.*;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ComponentListener;
+
+/**
+ * Lays out children that are not <code>ALJPanel</code>s, such as a <code>JPanel</code> with a classic <code>LayoutManager</code>, from inside an AutoLayout pass.
+ * <p>
+ * Whether a child listens for resizes is checked once, the first time the child is resized, and kept in one of its client properties along with the size it was last laid out at.  After that, a child is only sent <code>componentResized(_:)</code> and revalidated when its size actually changed, so a pass over unchanged children does no work.  Moving a child does not change its own layout, so it is not revalidated.
+ */
+final class ForeignLayoutBridge
+{
+	private static final Object stateKey = new Object();
+
+	private ForeignLayoutBridge() { }
+
+	/**
+	 * What a child can do, and the size it was last laid out at.
+	 */
+	private static final class State
+	{
+		final ComponentListener resizeListener;
+		int width = -1;
+		int height = -1;
+
+		State(JComponent component)
+		{
+			resizeListener = component instanceof ComponentListener ? (ComponentListener) component : null;
+		}
+	}
+
+	/**
+	 * Lays out <code>component</code> with its own layout if its size changed since the last call.  Components without a <code>LayoutManager</code> that do not listen for resizes, such as labels, are ignored.
+	 */
+	static void layoutIfResized(JComponent component)
+	{
+		if (component.getLayout() == null && !(component instanceof ComponentListener)) { return; }
+
+		State state = (State) component.getClientProperty(stateKey);
+		if (state == null)
+		{
+			state = new State(component);
+			component.putClientProperty(stateKey, state);
+		}
+
+		int width = component.getWidth();
+		int height = component.getHeight();
+		if (width == state.width && height == state.height) { return; }
+
+		state.width = width;
+		state.height = height;
+		if (state.resizeListener != null)
+		{
+			state.resizeListener.componentResized(new ComponentEvent(component, ComponentEvent.COMPONENT_RESIZED));
+		}
+		component.revalidate();
+		component.repaint();
+	}
+}
@@ -0,0 +1,115 @@
+package autolayout.ALJTable;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scrolling only shows and discards cells, which must not lay out the whole table again, even when every cell shown is a new one.
+ */
+class ALJTableScrollTest
+{
+	private static final int ROW_COUNT = 1_000;
+	private static final int ROW_HEIGHT = 44;
+
+	@Test
+	void scrollingDoesNotLayOutTable()
+	{
+		CountingTable table = new CountingTable();
+		table.setSize(800, 600);
+		table.dataSource = dataSource();
+		table.reloadData();
+		table.layoutIfNeeded();
+		table.layoutCount = 0;
+
+		JViewport viewport = ((JScrollPane) table.getComponent(0)).getViewport();
+		for (int y = ROW_HEIGHT; y <= ROW_HEIGHT * 100; y += ROW_HEIGHT)
+		{
+			viewport.setViewPosition(new Point(0, y));
+		}
+		table.layoutIfNeeded();
+
+		assertEquals(0, table.layoutCount);
+		assertTrue(hasCellAt(viewport.getView(), ROW_HEIGHT * 100), "the row at the top of the viewport is shown");
+	}
+
+	private static boolean hasCellAt(Component view, int y)
+	{
+		for (Component component : ((Container) view).getComponents())
+		{
+			if (component instanceof ALJTableCell && component.isVisible() && component.getY() == y && component.getHeight() == ROW_HEIGHT)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Cells without a <code>reuseIdentifier</code>, so each row scrolled in adds a new cell to the table and each row scrolled out removes one.
+	 */
+	private static ALJTableDataSource dataSource()
+	{
+		return new ALJTableDataSource()
+		{
+			@Override
+			public int numberOfSectionsIn(ALJTable table)
+			{
+				return 1;
+			}
+
+			@Override
+			public int numberOfRowsInSectionForTable(ALJTable table, int section)
+			{
+				return ROW_COUNT;
+			}
+
+			@Override
+			public int heightForRow(ALJTable table, int inSection)
+			{
+				return ROW_HEIGHT;
+			}
+
+			@Override
+			public ALJTableCell cellForRowAtIndexInTable(ALJTable table, ALJTableIndex index)
+			{
+				ALJTableCell cell = new ALJTableCell(ALJTableCellAccessoryViewType.none);
+				cell.titleLabel.setText("Row " + index.item);
+				return cell;
+			}
+
+			@Override
+			public String titleForHeaderInSectionInTable(ALJTable table, int section)
+			{
+				return null;
+			}
+
+			@Override
+			public String titleForFooterInSectionInTable(ALJTable table, int section)
+			{
+				return null;
+			}
+
+			@Override
+			public void tableView(ALJTable table, ALJTableCellEditingStyle commit, ALJTableIndex forRowAt) { }
+		};
+	}
+
+	private static final class CountingTable extends ALJTable
+	{
+		private static final long serialVersionUID = 1L;
+
+		int layoutCount = 0;
+
+		@Override
+		public void layoutSubviews()
+		{
+			layoutCount++;
+			super.layoutSubviews();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package autolayout;
+
+import autolayout.uiobjects.ALJPanel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.swing.*;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Laying out a panel whose constraints did not change must not allocate, or resizing a window would keep the garbage collector busy.
+ * <p>
+ * Each test warms a fixed panel up until the JIT has compiled the layout pass, then counts the bytes allocated on the test thread over many more passes.  Every pass resizes the panel to a width the <code>LayoutResultCache</code> does not hold, so every pass is solved, and validates it the way Swing would.
+ */
+class LayoutEngineAllocationTest
+{
+	private static final int ROW_COUNT = 50;
+	private static final int WARMUP_PASSES = 30_000;
+	private static final int MEASURED_PASSES = 1_000;
+
+	@AfterEach
+	void restoreEngine()
+	{
+		LayoutEngine.current.setSpecializesLayoutPlans(false);
+	}
+
+	@ParameterizedTest(name = "specialized = {0}")
+	@ValueSource(booleans = {false, true})
+	void layoutPassesDoNotAllocate(boolean specialized)
+	{
+		LayoutEngine.current.setSpecializesLayoutPlans(specialized);
+		assertPassesDoNotAllocate(panel());
+	}
+
+	@ParameterizedTest(name = "specialized = {0}")
+	@ValueSource(booleans = {false, true})
+	void labelPassesDoNotAllocate(boolean specialized)
+	{
+		LayoutEngine.current.setSpecializesLayoutPlans(specialized);
+		assertPassesDoNotAllocate(labelPanel(LayoutRelation.equal));
+	}
+
+	@Test
+	void simplexPassesDoNotAllocate()
+	{
+		ALJPanel panel = labelPanel(LayoutRelation.greaterThanOrEqual);
+
+		//Wider than the panel for part of every sweep, so the solver pivots between keeping its width and keeping it inside the panel
+		JLabel bar = new JLabel();
+		LayoutConstraint width = new LayoutConstraint(bar, LayoutAttribute.width, LayoutRelation.equal, null, LayoutAttribute.width, 1.0, 900);
+		width.priority = 750;
+		panel.add(bar);
+		panel.addConstraint(new LayoutConstraint(bar, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 8));
+		panel.addConstraint(new LayoutConstraint(bar, LayoutAttribute.trailing, LayoutRelation.lessThanOrEqual, panel, LayoutAttribute.trailing, 1.0, -8));
+		panel.addConstraint(new LayoutConstraint(bar, LayoutAttribute.bottom, LayoutRelation.equal, panel, LayoutAttribute.bottom, 1.0, -8));
+		panel.addConstraint(new LayoutConstraint(bar, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 4));
+		panel.addConstraint(width);
+
+		assertPassesDoNotAllocate(panel);
+	}
+
+	private static void assertPassesDoNotAllocate(ALJPanel panel)
+	{
+		com.sun.management.ThreadMXBean threads = allocationCounter();
+		for (int pass = 0; pass < WARMUP_PASSES; pass++)
+		{
+			resize(panel);
+		}
+
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int pass = 0; pass < MEASURED_PASSES; pass++)
+		{
+			resize(panel);
+		}
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+		assertEquals(0, allocated, "bytes allocated by " + MEASURED_PASSES + " layout passes");
+	}
+
+	private static com.sun.management.ThreadMXBean allocationCounter()
+	{
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "the JVM does not count allocated bytes");
+		com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+		assumeTrue(counter.isThreadAllocatedMemorySupported(), "the JVM does not count allocated bytes");
+		counter.setThreadAllocatedMemoryEnabled(true);
+		return counter;
+	}
+
+	/**
+	 * Validates the panel the way Swing does after it was resized, which lays it out and then validates its subviews.
+	 */
+	private static void resize(ALJPanel panel)
+	{
+		panel.setSize(panel.getWidth() >= 1000 ? 800 : panel.getWidth() + 1, panel.getHeight());
+		panel.validate();
+	}
+
+	/**
+	 * Swing only validates components that are displayable, which a panel outside a window is not until it is given a peer.
+	 */
+	private static ALJPanel displayable(ALJPanel panel)
+	{
+		panel.addNotify();
+		return panel;
+	}
+
+	/**
+	 * A column of views pinned to both sides of the panel, each with a badge centered in it at half its width.  The views are empty labels, since a <code>JPanel</code> lays its own subviews out with a <code>FlowLayout</code> that allocates, and no view relies on its preferred size.
+	 */
+	private static ALJPanel panel()
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		JComponent previous = null;
+		for (int index = 0; index < ROW_COUNT; index++)
+		{
+			JLabel row = new JLabel();
+			JLabel badge = new JLabel();
+			panel.add(row);
+			panel.add(badge);
+			panel.addConstraint(new LayoutConstraint(row, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 8));
+			panel.addConstraint(new LayoutConstraint(row, LayoutAttribute.trailing, LayoutRelation.equal, panel, LayoutAttribute.trailing, 1.0, -8));
+			panel.addConstraint(previous == null
+					? new LayoutConstraint(row, LayoutAttribute.top, LayoutRelation.equal, panel, LayoutAttribute.top, 1.0, 8)
+					: new LayoutConstraint(row, LayoutAttribute.top, LayoutRelation.equal, previous, LayoutAttribute.bottom, 1.0, 4));
+			panel.addConstraint(new LayoutConstraint(row, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 24));
+			panel.addConstraint(new LayoutConstraint(badge, LayoutAttribute.centerX, LayoutRelation.equal, row, LayoutAttribute.centerX, 1.0, 0));
+			panel.addConstraint(new LayoutConstraint(badge, LayoutAttribute.centerY, LayoutRelation.equal, row, LayoutAttribute.centerY, 1.0, 0));
+			panel.addConstraint(new LayoutConstraint(badge, LayoutAttribute.width, LayoutRelation.equal, row, LayoutAttribute.width, 0.5, 0));
+			panel.addConstraint(new LayoutConstraint(badge, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 16));
+			previous = row;
+		}
+		return displayable(panel);
+	}
+
+	/**
+	 * A column of rows, each with a title on the leading side and a detail on the trailing side.  Both labels are sized to their preferred size, which is only read again for labels that are not valid.
+	 *
+	 * @param spacing the relation of each title to the one above it, which makes the panel solved by <code>SimplexLayout</code> when it is an inequality
+	 */
+	private static ALJPanel labelPanel(LayoutRelation spacing)
+	{
+		ALJPanel panel = new ALJPanel();
+		panel.setSize(800, 600);
+
+		JComponent previous = null;
+		for (int index = 0; index < ROW_COUNT; index++)
+		{
+			JLabel title = new JLabel("Title " + index);
+			JLabel detail = new JLabel("Detail " + index);
+			panel.add(title);
+			panel.add(detail);
+			panel.addConstraint(new LayoutConstraint(title, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 8));
+			panel.addConstraint(previous == null
+					? new LayoutConstraint(title, LayoutAttribute.top, LayoutRelation.equal, panel, LayoutAttribute.top, 1.0, 8)
+					: new LayoutConstraint(title, LayoutAttribute.top, spacing, previous, LayoutAttribute.bottom, 1.0, 4));
+			panel.addConstraint(new LayoutConstraint(detail, LayoutAttribute.trailing, LayoutRelation.equal, panel, LayoutAttribute.trailing, 1.0, -8));
+			panel.addConstraint(new LayoutConstraint(detail, LayoutAttribute.centerY, LayoutRelation.equal, title, LayoutAttribute.centerY, 1.0, 0));
+			previous = title;
+		}
+		return displayable(panel);
+	}
+}
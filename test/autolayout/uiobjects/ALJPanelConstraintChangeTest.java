@@ -0,0 +1,113 @@
+package autolayout.uiobjects;
+
+import autolayout.LayoutAttribute;
+import autolayout.LayoutConstraint;
+import autolayout.LayoutRelation;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Changing the <code>constant</code> or <code>multiplier</code> of a constraint must lay its panel out again on the next <code>layoutIfNeeded()</code>, even when the panel is nested in another one and neither of them changed size.
+ */
+class ALJPanelConstraintChangeTest
+{
+	@Test
+	void constantChangeInNestedPanelIsLaidOut()
+	{
+		ALJPanel outer = new ALJPanel();
+		ALJPanel inner = new ALJPanel();
+		JLabel label = new JLabel("Label");
+		outer.setSize(400, 300);
+		outer.add(inner);
+		inner.add(label);
+		pinToEdges(outer, inner);
+
+		LayoutConstraint leading = new LayoutConstraint(label, LayoutAttribute.leading, LayoutRelation.equal, inner, LayoutAttribute.leading, 1.0, 10);
+		inner.addConstraint(leading);
+		inner.addConstraint(new LayoutConstraint(label, LayoutAttribute.top, LayoutRelation.equal, inner, LayoutAttribute.top, 1.0, 10));
+		inner.addConstraint(new LayoutConstraint(label, LayoutAttribute.width, LayoutRelation.equal, null, LayoutAttribute.width, 1.0, 100));
+		inner.addConstraint(new LayoutConstraint(label, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 20));
+		outer.layoutIfNeeded();
+		assertEquals(10, label.getX());
+
+		leading.setConstant(50);
+		outer.layoutIfNeeded();
+		assertEquals(50, label.getX());
+	}
+
+	@Test
+	void multiplierChangeIsLaidOut()
+	{
+		ALJPanel panel = new ALJPanel();
+		JLabel label = new JLabel("Label");
+		panel.setSize(400, 300);
+		panel.add(label);
+
+		LayoutConstraint width = new LayoutConstraint(label, LayoutAttribute.width, LayoutRelation.equal, panel, LayoutAttribute.width, 0.5, 0);
+		panel.addConstraint(new LayoutConstraint(label, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 0));
+		panel.addConstraint(new LayoutConstraint(label, LayoutAttribute.top, LayoutRelation.equal, panel, LayoutAttribute.top, 1.0, 0));
+		panel.addConstraint(width);
+		panel.addConstraint(new LayoutConstraint(label, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 20));
+		panel.layoutIfNeeded();
+		assertEquals(200, label.getWidth());
+
+		width.setMultiplier(0.25);
+		panel.layoutIfNeeded();
+		assertEquals(100, label.getWidth());
+	}
+
+	@Test
+	void constantChangeIsLaidOutBySimplexLayout()
+	{
+		ALJPanel panel = new ALJPanel();
+		JLabel label = new JLabel("Label");
+		panel.setSize(400, 300);
+		panel.add(label);
+
+		//An optional constraint makes the panel solved by SimplexLayout
+		LayoutConstraint top = new LayoutConstraint(label, LayoutAttribute.top, LayoutRelation.equal, panel, LayoutAttribute.top, 1.0, 10);
+		LayoutConstraint width = new LayoutConstraint(label, LayoutAttribute.width, LayoutRelation.equal, null, LayoutAttribute.width, 1.0, 100);
+		width.priority = 750;
+		panel.addConstraint(new LayoutConstraint(label, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 0));
+		panel.addConstraint(top);
+		panel.addConstraint(width);
+		panel.addConstraint(new LayoutConstraint(label, LayoutAttribute.height, LayoutRelation.equal, null, LayoutAttribute.height, 1.0, 20));
+		panel.layoutIfNeeded();
+		assertEquals(10, label.getY());
+
+		top.setConstant(30);
+		panel.layoutIfNeeded();
+		assertEquals(30, label.getY());
+		assertEquals(100, label.getWidth());
+	}
+
+	@Test
+	void constraintRemovedFromPanelNoLongerMarksIt()
+	{
+		ALJPanel panel = new ALJPanel();
+		JLabel label = new JLabel("Label");
+		panel.setSize(400, 300);
+		panel.add(label);
+
+		LayoutConstraint leading = new LayoutConstraint(label, LayoutAttribute.leading, LayoutRelation.equal, panel, LayoutAttribute.leading, 1.0, 10);
+		panel.addConstraint(leading);
+		panel.layoutIfNeeded();
+		panel.removeConstraint(leading);
+		panel.layoutIfNeeded();
+
+		leading.setConstant(50);
+		assertFalse(panel.layoutCache().needsLayout(panel.getWidth(), panel.getHeight()));
+	}
+
+	private static void pinToEdges(ALJPanel parent, JComponent child)
+	{
+		parent.addConstraint(new LayoutConstraint(child, LayoutAttribute.leading, LayoutRelation.equal, parent, LayoutAttribute.leading, 1.0, 0));
+		parent.addConstraint(new LayoutConstraint(child, LayoutAttribute.trailing, LayoutRelation.equal, parent, LayoutAttribute.trailing, 1.0, 0));
+		parent.addConstraint(new LayoutConstraint(child, LayoutAttribute.top, LayoutRelation.equal, parent, LayoutAttribute.top, 1.0, 0));
+		parent.addConstraint(new LayoutConstraint(child, LayoutAttribute.bottom, LayoutRelation.equal, parent, LayoutAttribute.bottom, 1.0, 0));
+	}
+}